@@ -0,0 +1,77 @@
+package io.foojay.discoeclipse.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.catalog.CompactCatalog;
+
+
+/**
+ * Decoding a cached package list into columns against creating a Pkg per entry, scanning a
+ * column against reading the same field from the packages and creating single packages
+ * from the columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactCatalogBenchmark {
+    @Param({ "11", "17", "21" })
+    private int            feature;
+
+    private List<String>   json;
+    private List<Pkg>      pkgs;
+    private CompactCatalog catalog;
+    private int            row;
+
+
+    @Setup public void setup() {
+        json    = Fixtures.load(feature);
+        pkgs    = Fixtures.toPkgs(json);
+        catalog = CompactCatalog.of(json);
+    }
+
+
+    @Benchmark public CompactCatalog decodeColumns() { return CompactCatalog.of(json); }
+
+    @Benchmark public List<Pkg> decodePkgs() { return Fixtures.toPkgs(json); }
+
+    @Benchmark public int scanColumns() {
+        int matches = 0;
+        for (int row = 0, size = catalog.size() ; row < size ; row++) {
+            if (OperatingSystem.LINUX == catalog.getOperatingSystem(row) && Architecture.X64 == catalog.getArchitecture(row) && !catalog.isJavafxBundled(row)) { matches++; }
+        }
+        return matches;
+    }
+
+    @Benchmark public int scanPkgs() {
+        int matches = 0;
+        for (Pkg pkg : pkgs) {
+            if (OperatingSystem.LINUX == pkg.getOperatingSystem() && Architecture.X64 == pkg.getArchitecture() && !pkg.isJavaFXBundled()) { matches++; }
+        }
+        return matches;
+    }
+
+    /** Creates the package of one row, what the dialog does for the row it finally selects */
+    @Benchmark public Pkg get() {
+        row = (row + 1) % catalog.size();
+        return catalog.get(row);
+    }
+}
@@ -0,0 +1,88 @@
+package io.foojay.discoeclipse.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.DiscoClient;
+import io.foojay.api.discoclient.pkg.Pkg;
+
+
+/**
+ * Package lists of one feature release in the file format of the catalog cache. The lists
+ * are read from the directory given with -Dfixtures, e.g. a copy of the catalog cache of a
+ * workspace, and otherwise from the fixtures bundled with the benchmarks.
+ */
+public final class Fixtures {
+    public  static final String FIXTURES_PROPERTY = "fixtures";
+    private static final String RESOURCES         = "/fixtures/";
+    private static final String FIELD_DATA        = "data";
+    private static final long   DISTRIBUTIONS_MS  = 10_000;
+
+
+    private Fixtures() {}
+
+
+    /** Returns the JSON of the packages of the given feature release, as CatalogCache.getCached() does */
+    public static List<String> load(final int feature) {
+        // file name of the key Catalog.getPkgs(null, feature, false) caches under
+        final String fileName  = "pkgs-feature-all-" + feature + "-ga.json";
+        awaitDistributions();
+        final String directory = System.getProperty(FIXTURES_PROPERTY);
+        try (InputStream is = null == directory ? Fixtures.class.getResourceAsStream(RESOURCES + fileName) : Files.newInputStream(Paths.get(directory).resolve(fileName))) {
+            if (null == is) { throw new IllegalArgumentException("No fixture " + fileName); }
+            final Reader       reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+            final JsonObject   json   = JsonParser.parseReader(reader).getAsJsonObject();
+            final List<String> items  = new ArrayList<>();
+            for (JsonElement element : json.getAsJsonArray(FIELD_DATA)) { items.add(element.toString()); }
+            return items;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Creates the packages of the given JSON, like the plugin did before the compact catalog */
+    public static List<Pkg> toPkgs(final List<String> json) {
+        final List<Pkg> pkgs = new ArrayList<>(json.size());
+        json.forEach(item -> pkgs.add(new Pkg(item)));
+        return pkgs;
+    }
+
+
+    /**
+     * Pkg looks its distribution up in a table the disco client fills in the background from
+     * its bundled distributions, and blocks on a remote update of that table while it is
+     * empty. Loading a fixture waits for the table, so no benchmark needs the network.
+     */
+    private static void awaitDistributions() {
+        new DiscoClient();
+        try {
+            final Field field = DiscoClient.class.getDeclaredField("DISTRIBUTIONS");
+            field.setAccessible(true);
+            final Map<?, ?> distributions = (Map<?, ?>) field.get(null);
+            final long      deadline      = System.currentTimeMillis() + DISTRIBUTIONS_MS;
+            while (distributions.isEmpty()) {
+                if (System.currentTimeMillis() > deadline) { throw new IllegalStateException("Disco client did not load its distributions"); }
+                Thread.sleep(10);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
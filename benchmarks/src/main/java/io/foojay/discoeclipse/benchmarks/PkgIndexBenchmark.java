@@ -0,0 +1,160 @@
+package io.foojay.discoeclipse.benchmarks;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.LibCType;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.util.OutputFormat;
+import io.foojay.discoeclipse.catalog.CompactCatalog;
+import io.foojay.discoeclipse.catalog.PkgIndex;
+import io.foojay.discoeclipse.catalog.VersionKey;
+
+
+/**
+ * The combo box cascade of JdkSelectorDialog: distributions of the selected version, then
+ * the operating systems, libc types, architectures and archive types of the selection and
+ * finally the package. The stream variant filters the package list for every combo box the
+ * way the dialog did before PkgIndex.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PkgIndexBenchmark {
+    private static final String  DISTRIBUTION     = "temurin";
+    private static final boolean JAVAFX_BUNDLED   = false;
+
+    @Param({ "11", "17", "21" })
+    private int            feature;
+
+    private List<Pkg>      pkgs;
+    private CompactCatalog catalog;
+    private PkgIndex       index;
+    private VersionKey     key;
+    private SemVer         selected;
+
+
+    @Setup public void setup() {
+        final List<String> json = Fixtures.load(feature);
+        pkgs    = Fixtures.toPkgs(json);
+        catalog = CompactCatalog.of(json);
+        index   = new PkgIndex(catalog);
+        final TreeSet<VersionKey> keys = new TreeSet<>();
+        pkgs.forEach(pkg -> keys.add(VersionKey.of(pkg.getJavaVersion(), false)));
+        key      = new ArrayList<>(keys).get(keys.size() / 2);
+        selected = key.toSemVer();
+    }
+
+
+    @Benchmark public PkgIndex build() { return new PkgIndex(catalog); }
+
+    @Benchmark public BitSet selectAll() { return index.select(null, null, null, null, null, null); }
+
+    @Benchmark public BitSet selectNarrow() { return index.select(JAVAFX_BUNDLED, distribution(index.getDistributions(JAVAFX_BUNDLED, key)), OperatingSystem.LINUX, null, Architecture.X64, ArchiveType.TAR_GZ); }
+
+    @Benchmark public void cascadeIndex(final Blackhole blackhole) {
+        final List<Distribution>   distributions    = index.getDistributions(JAVAFX_BUNDLED, key);
+        final Distribution         distribution     = distribution(distributions);
+        final Set<OperatingSystem> operatingSystems = index.getOperatingSystems(index.select(JAVAFX_BUNDLED, distribution, null, null, null, null));
+        final OperatingSystem      operatingSystem  = first(operatingSystems);
+        final Set<LibCType>        libcTypes        = index.getLibCTypes(index.select(JAVAFX_BUNDLED, distribution, operatingSystem, null, null, null));
+        final LibCType             libcType         = first(libcTypes);
+        final Set<Architecture>    architectures    = index.getArchitectures(index.select(JAVAFX_BUNDLED, distribution, operatingSystem, libcType, null, null));
+        final Architecture         architecture     = first(architectures);
+        final Set<ArchiveType>     archiveTypes     = index.getArchiveTypes(index.select(JAVAFX_BUNDLED, distribution, operatingSystem, libcType, architecture, null));
+        blackhole.consume(distributions);
+        blackhole.consume(operatingSystems);
+        blackhole.consume(libcTypes);
+        blackhole.consume(architectures);
+        blackhole.consume(archiveTypes);
+        blackhole.consume(index.getFirst(index.select(JAVAFX_BUNDLED, distribution, operatingSystem, libcType, architecture, first(archiveTypes))));
+    }
+
+    @Benchmark public void cascadeStreams(final Blackhole blackhole) {
+        final String               version          = selected.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, false);
+        final List<Distribution>   distributions    = pkgs.stream()
+                                                          .filter(pkg -> JAVAFX_BUNDLED == pkg.isJavaFXBundled())
+                                                          .filter(pkg -> pkg.getJavaVersion().getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, false).equals(version))
+                                                          .map(Pkg::getDistribution)
+                                                          .distinct()
+                                                          .sorted(Comparator.comparing(Distribution::getName).reversed())
+                                                          .collect(Collectors.toList());
+        final Distribution         distribution     = distribution(distributions);
+        final List<Pkg>            selectedPkgs     = pkgs.stream()
+                                                          .filter(pkg -> distribution.getApiString().equals(pkg.getDistribution().getApiString()))
+                                                          .filter(pkg -> pkg.getJavaVersion().getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, false).equals(version))
+                                                          .collect(Collectors.toList());
+        final Set<OperatingSystem> operatingSystems = selectedPkgs.stream().map(Pkg::getOperatingSystem).collect(Collectors.toSet());
+        final OperatingSystem      operatingSystem  = first(operatingSystems);
+        final Set<LibCType>        libcTypes        = selectedPkgs.stream()
+                                                                  .filter(pkg -> JAVAFX_BUNDLED == pkg.isJavaFXBundled())
+                                                                  .filter(pkg -> operatingSystem == pkg.getOperatingSystem())
+                                                                  .map(Pkg::getLibCType)
+                                                                  .collect(Collectors.toSet());
+        final LibCType             libcType         = first(libcTypes);
+        final Set<Architecture>    architectures    = selectedPkgs.stream()
+                                                                  .filter(pkg -> JAVAFX_BUNDLED == pkg.isJavaFXBundled())
+                                                                  .filter(pkg -> operatingSystem == pkg.getOperatingSystem())
+                                                                  .filter(pkg -> libcType == pkg.getLibCType())
+                                                                  .map(Pkg::getArchitecture)
+                                                                  .collect(Collectors.toSet());
+        final Architecture         architecture     = first(architectures);
+        final Set<ArchiveType>     archiveTypes     = selectedPkgs.stream()
+                                                                  .filter(pkg -> JAVAFX_BUNDLED == pkg.isJavaFXBundled())
+                                                                  .filter(pkg -> operatingSystem == pkg.getOperatingSystem())
+                                                                  .filter(pkg -> libcType == pkg.getLibCType())
+                                                                  .filter(pkg -> architecture == pkg.getArchitecture())
+                                                                  .map(Pkg::getArchiveType)
+                                                                  .collect(Collectors.toSet());
+        final ArchiveType          archiveType      = first(archiveTypes);
+        blackhole.consume(distributions);
+        blackhole.consume(operatingSystems);
+        blackhole.consume(libcTypes);
+        blackhole.consume(architectures);
+        blackhole.consume(archiveTypes);
+        blackhole.consume(selectedPkgs.stream()
+                                      .filter(pkg -> JAVAFX_BUNDLED == pkg.isJavaFXBundled())
+                                      .filter(pkg -> operatingSystem == pkg.getOperatingSystem())
+                                      .filter(pkg -> libcType == pkg.getLibCType())
+                                      .filter(pkg -> architecture == pkg.getArchitecture())
+                                      .filter(pkg -> archiveType == pkg.getArchiveType())
+                                      .findFirst()
+                                      .orElse(null));
+    }
+
+
+    /** Both variants continue with the same distribution, whatever order they list them in */
+    private static Distribution distribution(final List<Distribution> distributions) {
+        return distributions.stream().filter(distribution -> DISTRIBUTION.equals(distribution.getApiString())).findFirst().orElse(distributions.get(0));
+    }
+
+    /** The combo boxes preselect their first item */
+    private static <T> T first(final Set<T> values) { return values.isEmpty() ? null : values.iterator().next(); }
+}
@@ -0,0 +1,98 @@
+package io.foojay.discoeclipse.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.util.OutputFormat;
+import io.foojay.discoeclipse.catalog.CompactCatalog;
+import io.foojay.discoeclipse.catalog.VersionKey;
+
+
+/**
+ * Matching the packages of a feature release against the version selected in the version
+ * combo box. The string variants are what JdkSelectorDialog did before VersionKey, they
+ * format the version of every package and of the selection for every comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionKeyBenchmark {
+    @Param({ "11", "17", "21" })
+    private int            feature;
+
+    private List<Pkg>      pkgs;
+    private CompactCatalog catalog;
+    private List<SemVer>   semVers;
+    private SemVer         selected;
+    private VersionKey     key;
+
+
+    @Setup public void setup() {
+        final List<String> json = Fixtures.load(feature);
+        pkgs     = Fixtures.toPkgs(json);
+        catalog  = CompactCatalog.of(json);
+        semVers  = new ArrayList<>(pkgs.size());
+        pkgs.forEach(pkg -> semVers.add(pkg.getJavaVersion()));
+        // a version from the middle of the list, so neither variant stops early
+        final TreeSet<VersionKey> keys = new TreeSet<>();
+        semVers.forEach(semVer -> keys.add(VersionKey.of(semVer, false)));
+        key      = new ArrayList<>(keys).get(keys.size() / 2);
+        selected = key.toSemVer();
+    }
+
+
+    @Benchmark public int matchReducedString() {
+        int matches = 0;
+        for (Pkg pkg : pkgs) {
+            if (pkg.getJavaVersion().getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, false).equals(selected.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, false))) { matches++; }
+        }
+        return matches;
+    }
+
+    @Benchmark public int matchVersionKey() {
+        int matches = 0;
+        for (int row = 0, size = catalog.size() ; row < size ; row++) {
+            if (key.matches(catalog.getVersion(row), catalog.getQualifier(row))) { matches++; }
+        }
+        return matches;
+    }
+
+    /** Distinct reduced versions for the version combo box, as strings */
+    @Benchmark public TreeSet<String> versionsReducedString() {
+        final TreeSet<String> versions = new TreeSet<>();
+        semVers.forEach(semVer -> versions.add(semVer.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, false)));
+        return versions;
+    }
+
+    /** Distinct reduced versions for the version combo box, as keys */
+    @Benchmark public TreeSet<VersionKey> versionsKey() {
+        final TreeSet<VersionKey> versions = new TreeSet<>();
+        semVers.forEach(semVer -> versions.add(VersionKey.of(semVer, false)));
+        return versions;
+    }
+
+    @Benchmark public long pack() {
+        long result = 0;
+        for (SemVer semVer : semVers) { result ^= VersionKey.pack(semVer.getVersionNumber()) + VersionKey.qualify(semVer); }
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package io.foojay.discoeclipse;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+import io.foojay.discoeclipse.catalog.CatalogWarmUp;
+import io.foojay.discoeclipse.resolver.DefaultJdkResolver;
+import io.foojay.discoeclipse.resolver.JdkResolver;
+
+
+/**
+ * Registers the services of the plugin and starts warming up the catalog cache.
+ */
+public class Activator implements BundleActivator {
+    private static volatile ServiceTracker<JdkResolver, JdkResolver> resolverTracker;
+    private ServiceRegistration<JdkResolver>                         resolverRegistration;
+    private CatalogWarmUp                                            warmUp;
+
+
+    @Override public void start(final BundleContext context) {
+        resolverRegistration = context.registerService(JdkResolver.class, DefaultJdkResolver.getDefault(), null);
+        resolverTracker      = new ServiceTracker<>(context, JdkResolver.class, null);
+        resolverTracker.open();
+        warmUp               = CatalogWarmUp.getDefault();
+        if (CatalogWarmUp.isEnabled()) { warmUp.schedule(CatalogWarmUp.STARTUP_DELAY); }
+    }
+
+    @Override public void stop(final BundleContext context) {
+        if (null != warmUp) {
+            warmUp.cancel();
+            warmUp = null;
+        }
+        if (null != resolverTracker) {
+            resolverTracker.close();
+            resolverTracker = null;
+        }
+        if (null != resolverRegistration) {
+            resolverRegistration.unregister();
+            resolverRegistration = null;
+        }
+        DiscoExecutors.shutdown();
+    }
+
+
+    /** Returns the highest ranked registered resolver, while the bundle is not active the default resolver */
+    public static JdkResolver getResolver() {
+        final ServiceTracker<JdkResolver, JdkResolver> tracker  = resolverTracker;
+        final JdkResolver                              resolver = null == tracker ? null : tracker.getService();
+        return null == resolver ? DefaultJdkResolver.getDefault() : resolver;
+    }
+}
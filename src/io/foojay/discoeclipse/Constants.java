@@ -0,0 +1,17 @@
+package io.foojay.discoeclipse;
+
+
+public class Constants {
+    public static final String PLUGIN_ID                     = "DiscoEclipse";
+    public static final String USER_AGENT                    = "Eclipse";
+
+    public static final String PREFERENCE_OFFLINE            = "offline";
+    public static final String PREFERENCE_ARCHIVE_STORE_SIZE = "archiveStoreSize";
+    public static final String PREFERENCE_MAX_DOWNLOADS      = "maxDownloads";
+    public static final String PREFERENCE_BANDWIDTH_LIMIT    = "bandwidthLimit";
+    public static final String PREFERENCE_PROVISIONING_FILE  = "provisioningManifest";
+    public static final String PREFERENCE_MIRROR_URI         = "mirrorUri";
+    public static final String PREFERENCE_DISCO_URI          = "discoUri";
+    public static final String PREFERENCE_REGISTER_JRES      = "registerJres";
+    public static final String PREFERENCE_WARM_UP            = "warmUp";
+}
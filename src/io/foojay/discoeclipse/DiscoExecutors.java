@@ -0,0 +1,210 @@
+package io.foojay.discoeclipse;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The threads of the plugin, one executor per workload. On Java 21 and later every task
+ * gets its own virtual thread, on older runtimes a bounded pool of platform threads runs
+ * them. Either way a workload only runs a limited number of tasks at the same time and
+ * only accepts a limited number of waiting tasks. Beyond that blocking workloads make
+ * the submitter wait, the others reject the task, so the UI thread never blocks on them.
+ * The shared executors are shut down when the bundle stops, executors created for a
+ * dialog are shut down by the dialog.
+ */
+public final class DiscoExecutors {
+    public enum Workload {
+        CATALOG("catalog", 4, 32, 256, false),
+        DOWNLOAD("download", 32, 256, 64, true),
+        EXTRACT("extract", Math.min(4, Runtime.getRuntime().availableProcessors()), Math.min(4, Runtime.getRuntime().availableProcessors()), 16, true);
+
+        private final String  name;
+        private final int     platformThreads;
+        private final int     virtualThreads;
+        private final int     queueCapacity;
+        private final boolean blocking;
+
+
+        Workload(final String name, final int platformThreads, final int virtualThreads, final int queueCapacity, final boolean blocking) {
+            this.name            = name;
+            this.platformThreads = platformThreads;
+            this.virtualThreads  = virtualThreads;
+            this.queueCapacity   = queueCapacity;
+            this.blocking        = blocking;
+        }
+
+
+        public String getName() { return name; }
+
+        /** Number of tasks that run at the same time */
+        public int getParallelism() { return VIRTUAL_THREADS ? virtualThreads : platformThreads; }
+
+        /** Number of tasks that wait for a thread before the back-pressure sets in */
+        public int getQueueCapacity() { return queueCapacity; }
+
+        public boolean isBlocking() { return blocking; }
+    }
+
+    private static final boolean                                  VIRTUAL_THREADS = null != createVirtualThreadFactory("probe");
+    private static final long                                     KEEP_ALIVE      = 30;
+    private static final Map<Workload, DiscoExecutor>             EXECUTORS       = new EnumMap<>(Workload.class);
+
+
+    private DiscoExecutors() {}
+
+
+    /** Returns the shared executor of the workload, a new one if the bundle was stopped in between */
+    public static synchronized ExecutorService get(final Workload workload) {
+        DiscoExecutor executor = EXECUTORS.get(workload);
+        if (null == executor || executor.isShutdown()) {
+            executor = newExecutor(workload);
+            EXECUTORS.put(workload, executor);
+        }
+        return executor;
+    }
+
+    /** Returns a new executor for the workload that the caller has to shut down */
+    public static DiscoExecutor newExecutor(final Workload workload) {
+        return new DiscoExecutor(workload);
+    }
+
+    /** Stops the shared executors and interrupts their running tasks */
+    public static synchronized void shutdown() {
+        EXECUTORS.values().forEach(ExecutorService::shutdownNow);
+        EXECUTORS.clear();
+    }
+
+    public static boolean isVirtual() { return VIRTUAL_THREADS; }
+
+
+    // Thread.ofVirtual() is only available on Java 21, the bundle is compiled for Java 11
+    private static ThreadFactory createVirtualThreadFactory(final String name) {
+        if (Runtime.version().feature() < 21) { return null; }
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService createDelegate(final Workload workload) {
+        final String        name    = "DiscoEclipse " + workload.getName();
+        final ThreadFactory virtual = VIRTUAL_THREADS ? createVirtualThreadFactory(name) : null;
+        if (null != virtual) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, virtual);
+            } catch (ReflectiveOperationException e) {
+                // fall through to platform threads
+            }
+        }
+        final AtomicLong         counter = new AtomicLong();
+        final ThreadPoolExecutor pool    = new ThreadPoolExecutor(workload.platformThreads, workload.platformThreads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+
+    /**
+     * Executor of one workload. Pending tasks are counted from submission to completion, a
+     * virtual thread waits for a running permit before it runs its task, platform threads
+     * are limited by the size of their pool.
+     */
+    public static final class DiscoExecutor extends AbstractExecutorService {
+        private final Workload        workload;
+        private final ExecutorService delegate;
+        private final Semaphore       pending;
+        private final Semaphore       running;
+
+
+        private DiscoExecutor(final Workload workload) {
+            this.workload = workload;
+            this.delegate = createDelegate(workload);
+            this.pending  = new Semaphore(workload.getParallelism() + workload.getQueueCapacity());
+            this.running  = delegate instanceof ThreadPoolExecutor ? null : new Semaphore(workload.getParallelism(), true);
+        }
+
+
+        public Workload getWorkload() { return workload; }
+
+        /** Number of tasks that were submitted and have not finished yet */
+        public int getPending() { return workload.getParallelism() + workload.getQueueCapacity() - pending.availablePermits(); }
+
+        @Override public void execute(final Runnable command) {
+            Objects.requireNonNull(command);
+            if (delegate.isShutdown()) { throw new RejectedExecutionException("The " + workload.getName() + " executor is shut down"); }
+            acquire();
+            try {
+                delegate.execute(() -> run(command));
+            } catch (RejectedExecutionException e) {
+                pending.release();
+                throw e;
+            }
+        }
+
+        @Override public void shutdown() { delegate.shutdown(); }
+
+        @Override public List<Runnable> shutdownNow() { return delegate.shutdownNow(); }
+
+        @Override public boolean isShutdown() { return delegate.isShutdown(); }
+
+        @Override public boolean isTerminated() { return delegate.isTerminated(); }
+
+        @Override public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException { return delegate.awaitTermination(timeout, unit); }
+
+
+        private void acquire() {
+            if (!workload.isBlocking()) {
+                if (!pending.tryAcquire()) { throw new RejectedExecutionException("Too many pending " + workload.getName() + " tasks"); }
+                return;
+            }
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the " + workload.getName() + " executor", e);
+            }
+        }
+
+        private void run(final Runnable command) {
+            try {
+                if (null == running) {
+                    command.run();
+                    return;
+                }
+                running.acquire();
+                try {
+                    command.run();
+                } finally {
+                    running.release();
+                }
+            } catch (InterruptedException e) {
+                // shut down before the task got its turn
+                if (command instanceof Future) { ((Future<?>) command).cancel(false); }
+                Thread.currentThread().interrupt();
+            } finally {
+                pending.release();
+            }
+        }
+    }
+}
@@ -7,12 +7,21 @@ import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.handlers.HandlerUtil;
 
 
+/**
+ * Opens the JDK dialog, or the quick pick if the mode parameter of the command says so.
+ */
 public class DiscoHandler extends AbstractHandler {
+	public static final String PARAMETER_MODE  = "DiscoEclipse.commands.jdkDiscoveryService.mode";
+	public static final String MODE_QUICK_PICK = "quickPick";
 
 	@Override public Object execute(ExecutionEvent event) throws ExecutionException {
 		IWorkbenchWindow window = HandlerUtil.getActiveWorkbenchWindowChecked(event);
 		
-		new JdkSelectorDialog(window.getShell()).open();
+		if (MODE_QUICK_PICK.equals(event.getParameter(PARAMETER_MODE))) {
+			new QuickPickDialog(window.getShell()).open();
+		} else {
+			new JdkSelectorDialog(window.getShell()).open();
+		}
 		
 		return null;
 	}
@@ -0,0 +1,47 @@
+package io.foojay.discoeclipse;
+
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jface.preference.BooleanFieldEditor;
+import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
+import org.eclipse.jface.preference.StringFieldEditor;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPreferencePage;
+import org.eclipse.ui.preferences.ScopedPreferenceStore;
+
+import io.foojay.discoeclipse.download.DownloadManager;
+
+
+public class DiscoPreferencePage extends FieldEditorPreferencePage implements IWorkbenchPreferencePage {
+
+    public DiscoPreferencePage() {
+        super(GRID);
+        setDescription("Settings for downloads from the Foojay JDK Discovery Service");
+    }
+
+
+    @Override public void init(final IWorkbench workbench) {
+        ScopedPreferenceStore store = new ScopedPreferenceStore(InstanceScope.INSTANCE, Constants.PLUGIN_ID);
+        store.setDefault(Constants.PREFERENCE_MAX_DOWNLOADS, DownloadManager.DEFAULT_MAX_DOWNLOADS);
+        store.setDefault(Constants.PREFERENCE_BANDWIDTH_LIMIT, 0);
+        store.setDefault(Constants.PREFERENCE_REGISTER_JRES, true);
+        store.setDefault(Constants.PREFERENCE_WARM_UP, true);
+        setPreferenceStore(store);
+    }
+
+    @Override protected void createFieldEditors() {
+        IntegerFieldEditor maxDownloads = new IntegerFieldEditor(Constants.PREFERENCE_MAX_DOWNLOADS, "Parallel downloads:", getFieldEditorParent());
+        maxDownloads.setValidRange(1, 16);
+        addField(maxDownloads);
+
+        IntegerFieldEditor bandwidthLimit = new IntegerFieldEditor(Constants.PREFERENCE_BANDWIDTH_LIMIT, "Bandwidth limit in KB/s (0 = unlimited):", getFieldEditorParent());
+        bandwidthLimit.setValidRange(0, Integer.MAX_VALUE);
+        addField(bandwidthLimit);
+
+        addField(new BooleanFieldEditor(Constants.PREFERENCE_REGISTER_JRES, "Add extracted JDKs to the Installed JREs", getFieldEditorParent()));
+        addField(new BooleanFieldEditor(Constants.PREFERENCE_WARM_UP, "Load the JDK catalog in the background", getFieldEditorParent()));
+
+        addField(new StringFieldEditor(Constants.PREFERENCE_MIRROR_URI, "Mirror URL (empty = no mirror):", getFieldEditorParent()));
+        addField(new StringFieldEditor(Constants.PREFERENCE_DISCO_URI, "Disco API URL (empty = api.foojay.io):", getFieldEditorParent()));
+    }
+}
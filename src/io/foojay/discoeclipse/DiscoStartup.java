@@ -0,0 +1,59 @@
+package io.foojay.discoeclipse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IStartup;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+
+import io.foojay.discoeclipse.download.DownloadEngine;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.download.PendingDownloads;
+import io.foojay.discoeclipse.download.PendingDownloads.PendingDownload;
+
+
+/**
+ * Offers to resume the downloads that did not finish in the last session.
+ */
+public class DiscoStartup implements IStartup {
+
+    @Override public void earlyStartup() {
+        final PendingDownloads      pendingDownloads = PendingDownloads.getDefault();
+        final List<PendingDownload> unfinished       = pendingDownloads.getAll().stream()
+                                                                       .filter(download -> Files.exists(DownloadEngine.getPartFile(download.getTarget())))
+                                                                       .collect(Collectors.toList());
+        pendingDownloads.getAll().stream().filter(download -> !unfinished.contains(download)).forEach(download -> pendingDownloads.remove(download.getTarget()));
+        if (unfinished.isEmpty()) { return; }
+
+        final IWorkbench workbench = PlatformUI.getWorkbench();
+        workbench.getDisplay().asyncExec(() -> {
+            final IWorkbenchWindow window = workbench.getActiveWorkbenchWindow();
+            final Shell            shell  = null == window ? null : window.getShell();
+            final String           names  = unfinished.stream().map(download -> download.getTarget().getFileName().toString()).collect(Collectors.joining("\n"));
+            if (MessageDialog.openQuestion(shell, "Unfinished downloads", "The following downloads did not finish:\n\n" + names + "\n\nDo you want to resume them?")) {
+                unfinished.forEach(DownloadManager.getDefault()::resume);
+            } else {
+                unfinished.forEach(DiscoStartup::discard);
+            }
+        });
+    }
+
+
+    private static void discard(final PendingDownload download) {
+        try {
+            DownloadEngine.discard(download.getTarget());
+        } catch (IOException e) {
+            Platform.getLog(DiscoStartup.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, "Could not delete partial download " + download.getTarget(), e));
+        }
+        PendingDownloads.getDefault().remove(download.getTarget());
+    }
+}
@@ -1,19 +1,23 @@
 package io.foojay.discoeclipse;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -30,7 +34,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.Display;
-import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.ProgressBar;
 import org.eclipse.swt.widgets.Shell;
@@ -41,29 +44,50 @@ import io.foojay.api.discoclient.pkg.ArchiveType;
 import io.foojay.api.discoclient.pkg.Distribution;
 import io.foojay.api.discoclient.pkg.LibCType;
 import io.foojay.api.discoclient.pkg.MajorVersion;
-import io.foojay.api.discoclient.pkg.Match;
 import io.foojay.api.discoclient.pkg.OperatingSystem;
-import io.foojay.api.discoclient.pkg.PackageType;
 import io.foojay.api.discoclient.pkg.Pkg;
-import io.foojay.api.discoclient.pkg.ReleaseStatus;
-import io.foojay.api.discoclient.pkg.Scope;
 import io.foojay.api.discoclient.pkg.SemVer;
-import io.foojay.api.discoclient.pkg.VersionNumber;
-import io.foojay.api.discoclient.util.OutputFormat;
-import io.foojay.api.discoclient.util.PkgInfo;
-import io.foojay.api.discoclient.util.ReadableConsumerByteChannel;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.catalog.Catalog;
+import io.foojay.discoeclipse.catalog.CatalogCache;
+import io.foojay.discoeclipse.catalog.CatalogWarmUp;
+import io.foojay.discoeclipse.catalog.PkgIndex;
+import io.foojay.discoeclipse.catalog.VersionKey;
+import io.foojay.discoeclipse.download.ChecksumMismatchException;
+import io.foojay.discoeclipse.download.DownloadJob;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.download.ProgressReporter;
+import io.foojay.discoeclipse.extract.ArchiveExtractor;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.metrics.Sample;
+import io.foojay.discoeclipse.resolver.JdkConstraints;
+import io.foojay.discoeclipse.resolver.JdkResolver;
 
 
 public class JdkSelectorDialog extends Dialog {
+	private static final String  GENERATION_KEY = "generation";
+	private static final int     FRAME_INTERVAL = 100;
+	
 	private Display              display;
-	private DiscoClient 	     discoClient;
+	private Catalog              catalog;
+	private CatalogCache         catalogCache;
+	private ExecutorService      catalogExecutor;
 	private List<MajorVersion>   maintainedVersions;
-	private List<Pkg>            selectedPkgs;
+	private List<SemVer>         versionNumbers;
+	private List<Distribution>   distributions;
 	private Pkg                  selectedPkg;
-	private List<Pkg>            selectedPkgsForMajorVersion;
+	private JdkResolver          resolver;
+	private JdkConstraints       selectedConstraints;
+	private CompletableFuture<List<Pkg>> selectedPkgsForMajorVersion;
+	private CompletableFuture<PkgIndex>  fxPkgIndex;
+	private PkgIndex             pkgIndex;
+	private int                  generation;
+	private List<CompletableFuture<?>> inFlight;
+	private Sample               populating;
 	
-	private List<Distribution>   distributionsThatSupportFx;
+	private Button 				 offlineCheckBox;
 	private Button 				 javafxBundledCheckBox;
+	private Button               extractCheckBox;
 	private Combo  			     majorVersionComboBox;
 	private Combo  			     versionNumberComboBox;
 	private Combo  			     distributionComboBox;
@@ -73,6 +97,7 @@ public class JdkSelectorDialog extends Dialog {
 	private Combo  			     archiveTypeComboBox;
 	private Label  			     filenameLabel;
 	private ProgressBar 	     progressBar;
+	private Label                progressLabel;
 	private Button      	     downloadButton;
 	
 	private boolean              javafxBundled;
@@ -92,17 +117,25 @@ public class JdkSelectorDialog extends Dialog {
 	public JdkSelectorDialog(final Shell parentShell) {
 		super(parentShell);
 		display            			= parentShell.getDisplay();
-		discoClient        			= new DiscoClient("Eclipse");
-		maintainedVersions 		    = new LinkedList<>();
-		selectedPkgs       			= new LinkedList<>();
+		catalog                     = Catalog.getDefault();
+		catalogCache                = catalog.getCatalogCache();
+		catalogExecutor             = DiscoExecutors.newExecutor(Workload.CATALOG);
+		maintainedVersions 		    = new ArrayList<>();
+		versionNumbers              = new ArrayList<>();
+		distributions               = new ArrayList<>();
 		selectedPkg        			= null;
-		selectedPkgsForMajorVersion = new LinkedList<>();
+		resolver                    = Activator.getResolver();
+		selectedPkgsForMajorVersion = CompletableFuture.completedFuture(List.of());
+		fxPkgIndex                  = CompletableFuture.completedFuture(new PkgIndex(List.of()));
+		pkgIndex                    = new PkgIndex(List.of());
+		generation                  = 0;
+		inFlight                    = new ArrayList<>();
+		populating                  = Metrics.getDefault().startDialog();
 		javafxBundled      			= false;
         operatingSystems   			= new TreeSet<>();
         libcTypes          			= new TreeSet<>();
         architectures      			= new TreeSet<>();
         archiveTypes                = new TreeSet<>();
-        distributionsThatSupportFx  = List.of(DiscoClient.getDistributionFromText("zulu"), DiscoClient.getDistributionFromText("liberica"), DiscoClient.getDistributionFromText("corretto"));
 	}
 	
 	
@@ -111,12 +144,8 @@ public class JdkSelectorDialog extends Dialog {
 		
 		if (null == display) { return; }
 		
-		display.asyncExec(() -> {
-			maintainedVersions.addAll(discoClient.getMaintainedMajorVersions(true,  true));	
-            maintainedVersions.forEach(majorVersion -> majorVersionComboBox.add(Integer.toString(majorVersion.getAsInt())));
-            majorVersionComboBox.select(0);
-            majorVersionComboBox.notifyListeners(SWT.Selection, new Event());
-		});
+		loadMaintainedVersions();
+		CatalogWarmUp.getDefault().used();
 	}
 	
 	@Override protected Control createDialogArea(Composite parent) {
@@ -124,37 +153,25 @@ public class JdkSelectorDialog extends Dialog {
         GridLayout layout    = new GridLayout(2, false);
         container.setLayout(layout);
         
+        offlineCheckBox = new Button(container, SWT.CHECK);
+        offlineCheckBox.setText("Offline");
+        offlineCheckBox.setToolTipText("Only use the locally cached catalog");
+        offlineCheckBox.setSelection(catalogCache.isOffline());
+        offlineCheckBox.setLayoutData(new GridData(SWT.BEGINNING, SWT.CENTER, false, false));
+        offlineCheckBox.addSelectionListener(new SelectionAdapter() {
+            @Override public void widgetSelected(SelectionEvent e) {
+                catalogCache.setOffline(offlineCheckBox.getSelection());
+                loadMaintainedVersions();
+            }
+        });
+        
         javafxBundledCheckBox = new Button(container, SWT.CHECK);
         javafxBundledCheckBox.setText("JavaFX bundled");
-        javafxBundledCheckBox.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, true, false, 2, 1));
+        javafxBundledCheckBox.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, true, false));
         javafxBundledCheckBox.addSelectionListener(new SelectionListener() {
 			@Override public void widgetSelected(SelectionEvent e) {
 				javafxBundled = javafxBundledCheckBox.getSelection();
-				
-				boolean include_build = selectedMajorVersion.isEarlyAccessOnly();
-	            List<Distribution> distrosForSelection = selectedPkgsForMajorVersion.stream()
-	                                                                                .filter(pkg -> javafxBundled == pkg.isJavaFXBundled())
-	                                                                                .filter(pkg -> pkg.getJavaVersion().getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED,true,include_build).equals(selectedVersionNumber.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED,true,include_build)))
-	                                                                                .map(pkg -> pkg.getDistribution())
-	                                                                                .distinct()
-	                                                                                .sorted(Comparator.comparing(Distribution::getName).reversed())
-	                                                                                .collect(Collectors.toList());
-	            display.asyncExec(() -> {
-	    			distributionComboBox.removeAll();
-	    			
-	    			distrosForSelection.stream().forEach(distro -> distributionComboBox.add(distro.getUiString()));
-	    			if (distrosForSelection.size() > 0) {
-	    		        distributionComboBox.select(0);		
-	    		        distributionComboBox.notifyListeners(SWT.Selection, new Event());
-	    			} else {
-	    				operatingSystemComboBox.removeAll();
-	    				libcTypeComboBox.removeAll();
-	    				architectureComboBox.removeAll();
-	    				archiveTypeComboBox.removeAll();
-	    				filenameLabel.setText("-");
-	    			}
-	    		    selectDistribution();
-	    		});
+				selectVersionNumber();
 			}
 
 			@Override public void widgetDefaultSelected(SelectionEvent e) {}
@@ -211,7 +228,6 @@ public class JdkSelectorDialog extends Dialog {
 			@Override public void widgetSelected(SelectionEvent e) {
 				if (-1 == majorVersionComboBox.getSelectionIndex()) { return; }
 				if (-1 == versionNumberComboBox.getSelectionIndex()) { return; }
-				if (-1 == operatingSystemComboBox.getSelectionIndex()) { return; }
 				selectDistribution();
 			}
 
@@ -311,16 +327,29 @@ public class JdkSelectorDialog extends Dialog {
         
         progressBar = new ProgressBar(container, SWT.HORIZONTAL);
         progressBar.setMinimum(0);
-        progressBar.setMaximum(100);
+        progressBar.setMaximum(1000);
         final GridData progressBarData = new GridData(SWT.CENTER, SWT.CENTER, true, false, 2, 1);
         progressBarData.widthHint = 250;
         progressBar.setLayoutData(progressBarData);
         
+        progressLabel = new Label(container, SWT.NONE);
+        progressLabel.setText("");
+        final GridData progressLabelData = new GridData(SWT.CENTER, SWT.CENTER, true, false, 2, 1);
+        progressLabelData.widthHint = 250;
+        progressLabel.setLayoutData(progressLabelData);
+        progressLabel.setFont(filenameLabel.getFont());
+        
+        
+        extractCheckBox = new Button(container, SWT.CHECK);
+        extractCheckBox.setText("Extract");
+        extractCheckBox.setToolTipText("Extract the archive while it is downloaded instead of saving it");
+        extractCheckBox.setLayoutData(new GridData(SWT.BEGINNING, SWT.CENTER, false, false));
+        extractCheckBox.setEnabled(false);
         
         downloadButton = new Button(container, SWT.PUSH);
-        downloadButton.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 2, 1));
+        downloadButton.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false));
         downloadButton.setText("Download");
-        downloadButton.setToolTipText("Choose destination folder and start download");
+        downloadButton.setToolTipText("Choose destination folder and queue the download");
         downloadButton.addSelectionListener(new SelectionAdapter() {
             @Override public void widgetSelected(SelectionEvent e) {
                 downloadPkg();
@@ -328,6 +357,7 @@ public class JdkSelectorDialog extends Dialog {
         });
         
         
+        offlineCheckBox.pack();
         javafxBundledCheckBox.pack();
         majorVersionLabel.pack();
         majorVersionComboBox.pack();
@@ -342,7 +372,9 @@ public class JdkSelectorDialog extends Dialog {
         archiveTypeLabel.pack();
         archiveTypeComboBox.pack();
         progressBar.pack();
+        progressLabel.pack();
         filenameLabel.pack();
+        extractCheckBox.pack();
         downloadButton.pack();
                 
 		
@@ -358,120 +390,191 @@ public class JdkSelectorDialog extends Dialog {
         return new Point(280, 400);
     }
     
+    @Override public boolean close() {
+        inFlight.forEach(future -> future.cancel(true));
+        selectedPkgsForMajorVersion.cancel(true);
+        catalogExecutor.shutdownNow();
+        return super.close();
+    }
+    
+    
+    // Cancelling the returned future also cancels the subscription at the catalog cache
+    private <T> CompletableFuture<T> fetch(final Supplier<CompletableFuture<T>> subscriber) {
+        final CompletableFuture<T> request = new CompletableFuture<>();
+        try {
+            catalogExecutor.execute(() -> {
+                if (request.isDone()) { return; }
+                CompletableFuture<T> subscription = subscriber.get();
+                request.whenComplete((result, throwable) -> {
+                    if (request.isCancelled()) { subscription.cancel(true); }
+                });
+                subscription.whenComplete((result, throwable) -> {
+                    if (null == throwable) {
+                        request.complete(result);
+                    } else {
+                        request.completeExceptionally(throwable);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            // too many requests in flight or the dialog is closing
+            request.completeExceptionally(e);
+        }
+        return request;
+    }
+    
+    // Starts a new request generation, everything that is still in flight has been superseded
+    private void nextGeneration() {
+        generation++;
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+    }
+    
+    private <T> CompletableFuture<T> track(final CompletableFuture<T> future) {
+        inFlight.add(future);
+        return future;
+    }
+    
+    private <T> void whenLoaded(final CompletableFuture<T> future, final Combo combo, final Consumer<T> consumer) {
+        final int requestGeneration = generation;
+        setBusy(combo, true);
+        combo.setData(GENERATION_KEY, requestGeneration);
+        future.whenComplete((result, throwable) -> display.asyncExec(() -> {
+            if (combo.isDisposed()) { return; }
+            if (Integer.valueOf(requestGeneration).equals(combo.getData(GENERATION_KEY))) { setBusy(combo, false); }
+            if (requestGeneration != generation) { return; }
+            if (null == throwable) {
+                consumer.accept(result);
+            } else {
+                Platform.getLog(JdkSelectorDialog.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, "Could not load catalog data", throwable));
+                filenameLabel.setText("Catalog not available");
+            }
+        }));
+    }
+    
+    private void setBusy(final Combo combo, final boolean busy) {
+        combo.setEnabled(!busy);
+        if (busy) {
+            combo.removeAll();
+            combo.setText("Loading...");
+        } else if (combo.getItemCount() == 0) {
+            combo.setText("");
+        }
+    }
+    
+    private void populate(final Combo combo, final List<String> items, final String preferred) {
+        combo.removeAll();
+        items.forEach(combo::add);
+        if (items.isEmpty()) { return; }
+        int index = null == preferred ? -1 : items.indexOf(preferred);
+        combo.select(index == -1 ? 0 : index);
+    }
+    
+    private void clear(final Combo... combos) {
+        for (Combo combo : combos) { combo.removeAll(); }
+        selectedPkg         = null;
+        selectedConstraints = null;
+        filenameLabel.setText("-");
+    }
+    
+    private void loadMaintainedVersions() {
+        nextGeneration();
+        whenLoaded(track(fetch(() -> catalog.getMaintainedMajorVersions(refreshed -> display.asyncExec(() -> setMaintainedVersions(refreshed))))),
+                   majorVersionComboBox, this::setMaintainedVersions);
+    }
+    
+    private void setMaintainedVersions(final List<MajorVersion> versions) {
+        if (majorVersionComboBox.isDisposed()) { return; }
+        String selected = null == selectedMajorVersion ? null : Integer.toString(selectedMajorVersion.getAsInt());
+        maintainedVersions.clear();
+        maintainedVersions.addAll(versions);
+        populate(majorVersionComboBox, maintainedVersions.stream().map(majorVersion -> Integer.toString(majorVersion.getAsInt())).collect(Collectors.toList()), selected);
+        if (maintainedVersions.isEmpty()) {
+            clear(versionNumberComboBox, distributionComboBox, operatingSystemComboBox, libcTypeComboBox, architectureComboBox, archiveTypeComboBox);
+            return;
+        }
+        selectMajorVersion();
+    }
     
     private void selectMajorVersion() {
-    	String[] items         = majorVersionComboBox.getItems();
-		int      selectedIndex = majorVersionComboBox.getSelectionIndex();
-		if (items.length == 0 || selectedIndex == -1) { return; }				
+		int selectedIndex = majorVersionComboBox.getSelectionIndex();
+		if (selectedIndex == -1 || selectedIndex >= maintainedVersions.size()) { return; }
 		selectedMajorVersion = maintainedVersions.get(selectedIndex);
-    	final boolean include_build = selectedMajorVersion.isEarlyAccessOnly();
-    	display.asyncExec(() -> javafxBundledCheckBox.setEnabled(false));
-    	discoClient.getPkgsForFeatureVersionAsync(distributionsThatSupportFx, selectedMajorVersion.getAsInt(), include_build ? List.of(ReleaseStatus.EA) : List.of(ReleaseStatus.GA), true, List.of(Scope.PUBLIC, Scope.DIRECTLY_DOWNLOADABLE, Scope.BUILD_OF_OPEN_JDK), Match.ANY)
-        		   .thenAccept(pkgs -> {
-			            selectedPkgsForMajorVersion.clear();
-			            selectedPkgsForMajorVersion.addAll(pkgs);
-			            display.asyncExec(() -> {
-			            	javafxBundledCheckBox.setEnabled(true);
-			                versionNumberComboBox.notifyListeners(SWT.Selection, new Event());
-			            });
-			            selectVersionNumber();
-			        });
+    	final MajorVersion majorVersion = selectedMajorVersion;
+    	selectedPkgsForMajorVersion.cancel(true);
+    	selectedPkgsForMajorVersion = fetch(() -> catalog.getJavafxPkgs(majorVersion));
+    	fxPkgIndex = selectedPkgsForMajorVersion.thenApply(PkgIndex::new);
+    	javafxBundledCheckBox.setEnabled(false);
+    	selectedPkgsForMajorVersion.whenComplete((pkgs, throwable) -> display.asyncExec(() -> {
+    	    if (!javafxBundledCheckBox.isDisposed()) { javafxBundledCheckBox.setEnabled(true); }
+    	}));
     	
+    	versionNumbers = Catalog.getVersions(majorVersion);
     	
-    	List<SemVer> versionList = selectedMajorVersion.getVersions()
-										               .stream()
-										               .filter(semVer -> selectedMajorVersion.isEarlyAccessOnly() ? (semVer.getReleaseStatus() == ReleaseStatus.EA) : (semVer.getReleaseStatus() == ReleaseStatus.GA))
-										               .sorted(Comparator.comparing(SemVer::getVersionNumber).reversed())
-										               .map(semVer -> semVer.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, include_build))
-										               .distinct().map(versionString -> SemVer.fromText(versionString).getSemVer1())
-										               .collect(Collectors.toList());
-    	
-		display.asyncExec(() -> {
-		    versionNumberComboBox.removeAll();
-		    versionList.forEach(version -> versionNumberComboBox.add(version.toString(true)));
-		    versionNumberComboBox.select(0);
-		    versionNumberComboBox.notifyListeners(SWT.Selection, new Event());
-		    selectVersionNumber();
-		});
+    	populate(versionNumberComboBox, versionNumbers.stream().map(version -> version.toString(true)).collect(Collectors.toList()), null);
+    	if (versionNumbers.isEmpty()) {
+    	    clear(distributionComboBox, operatingSystemComboBox, libcTypeComboBox, architectureComboBox, archiveTypeComboBox);
+    	    return;
+    	}
+	    selectVersionNumber();
     }
     
     private void selectVersionNumber() {
-    	String[] items         = versionNumberComboBox.getItems();
-		int      selectedIndex = versionNumberComboBox.getSelectionIndex();
-		if (items.length == 0 || selectedIndex == -1) { return; }
+		int selectedIndex = versionNumberComboBox.getSelectionIndex();
+		if (selectedIndex == -1 || selectedIndex >= versionNumbers.size() || null == selectedMajorVersion) { return; }
 		
-		display.asyncExec(() -> {
-			selectedVersionNumber = SemVer.fromText(items[selectedIndex]).getSemVer1();
-			
-			List<Distribution> distrosForSelection;
-			if (javafxBundled) {
-				boolean include_build = selectedMajorVersion.isEarlyAccessOnly();
-				distrosForSelection = selectedPkgsForMajorVersion.stream()
-                        .filter(pkg -> javafxBundled == pkg.isJavaFXBundled())
-                        .filter(pkg -> pkg.getJavaVersion().getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED,true,include_build).equals(selectedVersionNumber.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED,true,include_build)))
-                        .map(pkg -> pkg.getDistribution())
-                        .distinct()
-                        .sorted(Comparator.comparing(Distribution::getName).reversed())
-                        .collect(Collectors.toList());
-			} else {
-				distrosForSelection = discoClient.getDistributionsForSemVerAsync(selectedVersionNumber)
-                        .thenApply(distros -> distros.stream()
-                                                     .filter(distro -> distro.getScopes().contains(Scope.DIRECTLY_DOWNLOADABLE))
-                                                     .sorted(Comparator.comparing(Distribution::getName).reversed()))
-                        .join()
-                        .collect(Collectors.toList());
-			}
-			
-			distributionComboBox.removeAll();
-			distrosForSelection.stream().forEach(distro -> distributionComboBox.add(distro.getUiString()));
-			if (distrosForSelection.size() > 0) {
-				distributionComboBox.select(0);		
-			    distributionComboBox.notifyListeners(SWT.Selection, new Event());
-			} else {
-				operatingSystemComboBox.removeAll();
-                libcTypeComboBox.removeAll();
-                architectureComboBox.removeAll();
-                archiveTypeComboBox.removeAll();
-			}
+		selectedVersionNumber = versionNumbers.get(selectedIndex);
+		nextGeneration();
+		
+		final SemVer  versionNumber = selectedVersionNumber;
+		final boolean include_build = selectedMajorVersion.isEarlyAccessOnly();
+		final boolean fxBundled     = javafxBundled;
+		CompletableFuture<List<Distribution>> distrosForSelection;
+		if (fxBundled) {
+			final VersionKey version = VersionKey.of(versionNumber, include_build);
+			distrosForSelection = track(fxPkgIndex.thenApplyAsync(index -> index.getDistributions(fxBundled, version)
+                                                                                .stream()
+                                                                                .sorted(Comparator.comparing(Distribution::getName).reversed())
+                                                                                .collect(Collectors.toList()), catalogExecutor));
+		} else {
+			distrosForSelection = track(fetch(() -> catalog.getDistributions(versionNumber))).thenApply(Catalog::getOffered);
+		}
+		
+		whenLoaded(distrosForSelection, distributionComboBox, distros -> {
+		    String selected = null == selectedDistribution ? null : selectedDistribution.getUiString();
+		    distributions = distros;
+		    populate(distributionComboBox, distributions.stream().map(Distribution::getUiString).collect(Collectors.toList()), selected);
+		    if (distributions.isEmpty()) {
+		        clear(operatingSystemComboBox, libcTypeComboBox, architectureComboBox, archiveTypeComboBox);
+		        return;
+		    }
 		    selectDistribution();
 		});
     }
     
     private void selectDistribution() {
-    	String[] items         = distributionComboBox.getItems();
-		int      selectedIndex = distributionComboBox.getSelectionIndex();
-		if (items.length == 0 || selectedIndex == -1) { return; }
-		
-		selectedDistribution = DiscoClient.getDistributionFromText(items[selectedIndex]);
+		int selectedIndex = distributionComboBox.getSelectionIndex();
+		if (selectedIndex == -1 || selectedIndex >= distributions.size()) { return; }
 		
-		selectedPkgs.clear();
-        operatingSystems.clear();
-        architectures.clear();
-        libcTypes.clear();
-        archiveTypes.clear();
+		selectedDistribution = distributions.get(selectedIndex);
+		nextGeneration();
 		
-        selectedPkgs.addAll(discoClient.getPkgs(List.of(selectedDistribution), VersionNumber.fromText((selectedVersionNumber).toString(true)), null, null, null, null, null, null, PackageType.JDK,
-                								null, true, null, null,List.of(Scope.PUBLIC, Scope.DIRECTLY_DOWNLOADABLE, Scope.BUILD_OF_OPEN_JDK), Match.ANY));
-        selectedPkgs.forEach(pkg -> {
-            operatingSystems.add(pkg.getOperatingSystem());
-            architectures.add(pkg.getArchitecture());
-            libcTypes.add(pkg.getLibCType());
-            archiveTypes.add(pkg.getArchiveType());
+        final Distribution distribution = selectedDistribution;
+        final SemVer       version      = selectedVersionNumber;
+        final boolean      fxBundled    = javafxBundled;
+        CompletableFuture<PkgIndex> index = track(fetch(() -> catalog.getPkgs(distribution, version))).thenApply(PkgIndex::new);
+        
+        whenLoaded(index, operatingSystemComboBox, pkgs -> {
+            String selected  = null == selectedOperatingSystem ? DiscoClient.getOperatingSystem().getUiString() : selectedOperatingSystem.getUiString();
+            pkgIndex         = pkgs;
+            operatingSystems = pkgIndex.getOperatingSystems(pkgIndex.select(fxBundled, distribution, null, null, null, null));
+            populate(operatingSystemComboBox, operatingSystems.stream().map(OperatingSystem::getUiString).collect(Collectors.toList()), selected);
+            if (operatingSystems.isEmpty()) {
+                clear(libcTypeComboBox, architectureComboBox, archiveTypeComboBox);
+                return;
+            }
+            selectOperatingSystem();
         });
-        
-        
-		display.asyncExec(() -> {
-			operatingSystemComboBox.removeAll();
-			operatingSystems.forEach(os -> operatingSystemComboBox.add(os.getUiString()));
-			for (int i = 0 ; i < operatingSystems.size() ; i++) {
-				if (operatingSystemComboBox.getItem(i).equals(DiscoClient.getOperatingSystem().getUiString())) {
-					operatingSystemComboBox.select(i);
-					break;
-				}
-			}
-			operatingSystemComboBox.notifyListeners(SWT.Selection, new Event());
-			selectOperatingSystem();
-		});
     }
     
     private void selectOperatingSystem() {
@@ -480,19 +583,9 @@ public class JdkSelectorDialog extends Dialog {
 		if (items.length == 0 || selectedIndex == -1) { return; }
 		
 		selectedOperatingSystem = OperatingSystem.fromText(items[selectedIndex]);
-		List<Pkg> selection = selectedPkgs.stream()
-                .filter(pkg -> pkg.isJavaFXBundled() == javafxBundled)
-                .filter(pkg -> selectedDistribution.getApiString().equals(pkg.getDistribution().getApiString()))
-                .filter(pkg -> selectedOperatingSystem == pkg.getOperatingSystem())
-                .collect(Collectors.toList());
-        libcTypes = selection.stream().map(pkg -> pkg.getLibCType()).collect(Collectors.toSet());
-		display.asyncExec(() -> {
-            libcTypeComboBox.removeAll();
-            libcTypes.forEach(libcType -> libcTypeComboBox.add(libcType.getUiString()));
-            libcTypeComboBox.select(0);
-            libcTypeComboBox.notifyListeners(SWT.Selection, new Event());
-            selectLibcType();
-		});
+        libcTypes = pkgIndex.getLibCTypes(pkgIndex.select(javafxBundled, selectedDistribution, selectedOperatingSystem, null, null, null));
+        populate(libcTypeComboBox, libcTypes.stream().map(LibCType::getUiString).collect(Collectors.toList()), null == selectedLibcType ? null : selectedLibcType.getUiString());
+        selectLibcType();
     }
     
     private void selectLibcType() {
@@ -501,21 +594,9 @@ public class JdkSelectorDialog extends Dialog {
 		if (items.length == 0 || selectedIndex == -1) { return; }
 				
 		selectedLibcType = LibCType.fromText(items[selectedIndex]);
-        
-		List<Pkg> selection = selectedPkgs.stream()
-                                          .filter(pkg -> pkg.isJavaFXBundled() == javafxBundled)
-                                          .filter(pkg -> selectedDistribution.getApiString().equals(pkg.getDistribution().getApiString()))
-                                          .filter(pkg -> selectedOperatingSystem == pkg.getOperatingSystem())
-                                          .filter(pkg -> selectedLibcType        == pkg.getLibCType())
-                                          .collect(Collectors.toList());
-        architectures = selection.stream().map(pkg -> pkg.getArchitecture()).collect(Collectors.toSet());
-		display.asyncExec(() -> {			
-            architectureComboBox.removeAll();
-            architectures.forEach(architecture -> architectureComboBox.add(architecture.getUiString()));
-            architectureComboBox.select(0);
-            architectureComboBox.notifyListeners(SWT.Selection, new Event());
-            selectArchitecture();
-		});
+        architectures    = pkgIndex.getArchitectures(pkgIndex.select(javafxBundled, selectedDistribution, selectedOperatingSystem, selectedLibcType, null, null));
+        populate(architectureComboBox, architectures.stream().map(Architecture::getUiString).collect(Collectors.toList()), null == selectedArchitecture ? null : selectedArchitecture.getUiString());
+        selectArchitecture();
     }
     
     private void selectArchitecture() {
@@ -524,21 +605,9 @@ public class JdkSelectorDialog extends Dialog {
 		if (items.length == 0 || selectedIndex == -1) { return; }
 		
 		selectedArchitecture = Architecture.fromText(items[selectedIndex]);
-		List<Pkg> selection = selectedPkgs.stream()
-                .filter(pkg -> pkg.isJavaFXBundled() == javafxBundled)
-                .filter(pkg -> selectedDistribution.getApiString().equals(pkg.getDistribution().getApiString()))
-                .filter(pkg -> selectedOperatingSystem == pkg.getOperatingSystem())
-                .filter(pkg -> selectedLibcType        == pkg.getLibCType())
-                .filter(pkg -> selectedArchitecture    == pkg.getArchitecture())
-                .collect(Collectors.toList());
-        archiveTypes = selection.stream().map(pkg -> pkg.getArchiveType()).collect(Collectors.toSet());
-		display.asyncExec(() -> {
-            archiveTypeComboBox.removeAll();
-            archiveTypes.forEach(archiveType -> archiveTypeComboBox.add(archiveType.getUiString()));
-            archiveTypeComboBox.select(0);
-            archiveTypeComboBox.notifyListeners(SWT.Selection, new Event());
-            selectArchiveType();
-		});
+        archiveTypes         = pkgIndex.getArchiveTypes(pkgIndex.select(javafxBundled, selectedDistribution, selectedOperatingSystem, selectedLibcType, selectedArchitecture, null));
+        populate(archiveTypeComboBox, archiveTypes.stream().map(ArchiveType::getUiString).collect(Collectors.toList()), null == selectedArchiveType ? null : selectedArchiveType.getUiString());
+        selectArchiveType();
     }
     
     private void selectArchiveType() {
@@ -551,22 +620,18 @@ public class JdkSelectorDialog extends Dialog {
     }
     
     private void update() {
-    	List<Pkg> selection = selectedPkgs.stream()
-                .filter(pkg -> pkg.isJavaFXBundled()   == javafxBundled)
-                .filter(pkg -> selectedDistribution.getApiString().equals(pkg.getDistribution().getApiString()))
-                .filter(pkg -> selectedOperatingSystem == pkg.getOperatingSystem())
-                .filter(pkg -> selectedLibcType        == pkg.getLibCType())
-                .filter(pkg -> selectedArchitecture    == pkg.getArchitecture())
-                .filter(pkg -> selectedArchiveType     == pkg.getArchiveType())
-                .collect(Collectors.toList());
-    	
-    	if (selection.size() > 0) {
-            selectedPkg = selection.get(0);
-            display.asyncExec(() -> filenameLabel.setText(null == selectedPkg ? "-" : selectedPkg.getFileName()));
-        } else {
-            selectedPkg = null;
-            display.asyncExec(() -> filenameLabel.setText("-"));
-        }
+    	final JdkConstraints constraints = new JdkConstraints(selectedVersionNumber, selectedDistribution, selectedOperatingSystem, selectedLibcType, selectedArchitecture, selectedArchiveType, javafxBundled);
+    	selectedConstraints = constraints;
+    	selectedPkg         = null;
+    	extractCheckBox.setEnabled(false);
+    	// the resolver shares the package list the combos were filled from, so this is served from the cache
+    	resolver.resolve(constraints).whenComplete((pkg, throwable) -> display.asyncExec(() -> {
+    	    if (filenameLabel.isDisposed() || constraints != selectedConstraints) { return; }
+    	    selectedPkg = pkg;
+    	    if (null != selectedPkg) { populating.stop(false); }
+    	    filenameLabel.setText(null == selectedPkg ? "-" : selectedPkg.getFileName());
+    	    extractCheckBox.setEnabled(null != selectedPkg && ArchiveExtractor.isSupported(selectedPkg.getArchiveType()));
+    	}));
     }
     
     private void downloadPkg() {
@@ -581,35 +646,34 @@ public class JdkSelectorDialog extends Dialog {
         
         if (null == targetFolder) { return; }
                
-        PkgInfo pkgInfo  = discoClient.getPkgInfo(selectedPkg.getEphemeralId(), selectedPkg.getJavaVersion());
-        String  filename = pkgInfo.getFileName();
-        
-        downloadButton.setEnabled(false);
-        String targetFilename = targetFolder + File.separator + filename;
-        String directDownloadUri = pkgInfo.getDirectDownloadUri();
-        
-        Runnable downloadTask = () -> {
-        	try {
-                final URLConnection               connection = new URL(directDownloadUri).openConnection();
-                final int                         fileSize   = connection.getContentLength();
-                final ReadableByteChannel         rbc        = Channels.newChannel(connection.getInputStream());
-                final ReadableConsumerByteChannel rcbc       = new ReadableConsumerByteChannel(rbc, (b) -> {
-                	display.asyncExec(() -> progressBar.setSelection((int) ((double) b / (double) fileSize * 100)));
-                });                
-                final FileOutputStream            fos        = new FileOutputStream(targetFilename);
-                fos.getChannel().transferFrom(rcbc, 0, Long.MAX_VALUE);
-                fos.close();
-                rcbc.close();
-                rbc.close();
-            } catch (IOException ex) {
-            
-            } finally {
-        	    display.asyncExec(() -> {
-        	    	progressBar.setSelection(0);
-        	    	downloadButton.setEnabled(true);
-        	    });
+        final Pkg     pkg     = selectedPkg;
+        final boolean extract = extractCheckBox.getEnabled() && extractCheckBox.getSelection();
+        
+        final ProgressReporter reporter = new ProgressReporter();
+        final DownloadJob      job      = DownloadManager.getDefault().enqueue(pkg, Path.of(targetFolder), extract, reporter);
+        // transfer threads only count bytes, the progress is shown at a fixed frame rate
+        display.timerExec(FRAME_INTERVAL, new Runnable() {
+            @Override public void run() {
+                if (progressBar.isDisposed() || null != job.getResult()) { return; }
+                reporter.sample();
+                progressBar.setSelection(Math.max(0, reporter.getPermille()));
+                progressLabel.setText(reporter.getTransferred() > 0 ? reporter.format() : "Waiting...");
+                display.timerExec(FRAME_INTERVAL, this);
             }
-        };
-        new Thread(downloadTask).start();
+        });
+        job.addJobChangeListener(new JobChangeAdapter() {
+            @Override public void done(final IJobChangeEvent event) {
+                display.asyncExec(() -> {
+                    if (progressBar.isDisposed()) { return; }
+                    progressBar.setSelection(0);
+                    progressLabel.setText("");
+                    if (event.getResult().isOK()) {
+                        filenameLabel.setText(job.getDownloadedPath().getFileName().toString());
+                    } else if (event.getResult().getSeverity() == IStatus.ERROR) {
+                        filenameLabel.setText(event.getResult().getException() instanceof ChecksumMismatchException ? "Checksum mismatch" : "Download failed");
+                    }
+                });
+            }
+        });
     }
 }
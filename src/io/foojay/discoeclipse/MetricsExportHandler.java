@@ -0,0 +1,44 @@
+package io.foojay.discoeclipse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+import io.foojay.discoeclipse.metrics.Metrics;
+
+
+/**
+ * Writes the current metrics of the plugin to a text file, e.g. to attach it to a bug report.
+ */
+public class MetricsExportHandler extends AbstractHandler {
+
+    @Override public Object execute(final ExecutionEvent event) throws ExecutionException {
+        final IWorkbenchWindow window = HandlerUtil.getActiveWorkbenchWindowChecked(event);
+
+        final FileDialog dialog = new FileDialog(window.getShell(), SWT.SAVE);
+        dialog.setText("Export Foojay metrics");
+        dialog.setFileName("discoeclipse-metrics.txt");
+        dialog.setFilterExtensions(new String[] { "*.txt", "*.*" });
+        dialog.setOverwrite(true);
+        final String file = dialog.open();
+        if (null == file) { return null; }
+
+        try (Writer writer = Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8)) {
+            Metrics.getDefault().dump(writer);
+        } catch (IOException e) {
+            MessageDialog.openError(window.getShell(), "Export Foojay metrics", "Could not write " + file + ": " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package io.foojay.discoeclipse;
+
+import java.nio.file.Path;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+import io.foojay.discoeclipse.catalog.Catalog;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.provision.MirrorExporter;
+
+
+/**
+ * Exports the JDKs of a provisioning manifest and the catalog into a mirror directory.
+ */
+public class MirrorExportHandler extends AbstractHandler {
+
+    @Override public Object execute(final ExecutionEvent event) throws ExecutionException {
+        final IWorkbenchWindow window   = HandlerUtil.getActiveWorkbenchWindowChecked(event);
+        final Path             manifest = ProvisionHandler.selectManifest(window.getShell());
+        if (null == manifest) { return null; }
+
+        final DirectoryDialog dialog = new DirectoryDialog(window.getShell());
+        dialog.setText("Select mirror directory");
+        dialog.setMessage("Select the directory to export the mirror to");
+        dialog.setFilterPath(manifest.toAbsolutePath().getParent().toString());
+        final String directory = dialog.open();
+        if (null == directory) { return null; }
+
+        final MirrorExporter exporter = new MirrorExporter(manifest, Path.of(directory), Catalog.getDefault(), Activator.getResolver(), DownloadManager.getDefault());
+        exporter.setUser(true);
+        exporter.schedule();
+        return null;
+    }
+}
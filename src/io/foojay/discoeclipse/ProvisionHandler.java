@@ -0,0 +1,55 @@
+package io.foojay.discoeclipse;
+
+import java.nio.file.Path;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.provision.Provisioner;
+
+
+/**
+ * Provisions all JDKs of a manifest file, the last used manifest is preselected.
+ */
+public class ProvisionHandler extends AbstractHandler {
+
+    @Override public Object execute(final ExecutionEvent event) throws ExecutionException {
+        final IWorkbenchWindow window   = HandlerUtil.getActiveWorkbenchWindowChecked(event);
+        final Path             manifest = selectManifest(window.getShell());
+        if (null == manifest) { return null; }
+
+        final Provisioner provisioner = new Provisioner(manifest, Activator.getResolver(), DownloadManager.getDefault());
+        provisioner.setUser(true);
+        provisioner.schedule();
+        return null;
+    }
+
+
+    /** Asks for a provisioning manifest, the last selected one is preselected */
+    static Path selectManifest(final Shell shell) {
+        final IEclipsePreferences preferences = InstanceScope.INSTANCE.getNode(Constants.PLUGIN_ID);
+        final String              previous    = preferences.get(Constants.PREFERENCE_PROVISIONING_FILE, null);
+
+        final FileDialog dialog = new FileDialog(shell, SWT.OPEN);
+        dialog.setText("Select provisioning manifest");
+        dialog.setFilterExtensions(new String[] { "*.json", "*.*" });
+        if (null != previous) {
+            final Path path = Path.of(previous);
+            dialog.setFilterPath(null == path.getParent() ? null : path.getParent().toString());
+            dialog.setFileName(path.getFileName().toString());
+        }
+        final String file = dialog.open();
+        if (null == file) { return null; }
+        preferences.put(Constants.PREFERENCE_PROVISIONING_FILE, file);
+        return Path.of(file);
+    }
+}
@@ -0,0 +1,164 @@
+package io.foojay.discoeclipse;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.KeyAdapter;
+import org.eclipse.swt.events.KeyEvent;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+import io.foojay.discoeclipse.catalog.CatalogWarmUp;
+import io.foojay.discoeclipse.catalog.PkgSearchIndex;
+import io.foojay.discoeclipse.catalog.PkgSearchIndex.Hit;
+import io.foojay.discoeclipse.download.DownloadListener;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.extract.ArchiveExtractor;
+
+
+/**
+ * Alternative to the JDK dialog with a single search field, e.g. "21 temurin linux aarch64 tar".
+ * Every keystroke searches the package index of the whole cached catalog, the download
+ * runs as job after the dialog closed.
+ */
+public class QuickPickDialog extends Dialog {
+    private final PkgSearchIndex         index;
+    private final Runnable               indexListener;
+    private Text                         searchText;
+    private org.eclipse.swt.widgets.List resultList;
+    private Label                        statusLabel;
+    private Button                       extractCheckBox;
+    private List<Hit>                    hits;
+
+
+    public QuickPickDialog(final Shell parentShell) {
+        super(parentShell);
+        index         = PkgSearchIndex.getDefault();
+        hits          = List.of();
+        indexListener = () -> parentShell.getDisplay().asyncExec(() -> {
+            if (null != resultList && !resultList.isDisposed()) { search(); }
+        });
+        CatalogWarmUp.getDefault().used();
+    }
+
+
+    @Override protected Control createDialogArea(final Composite parent) {
+        Composite container = (Composite) super.createDialogArea(parent);
+        container.setLayout(new GridLayout(1, false));
+
+        searchText = new Text(container, SWT.SEARCH | SWT.ICON_SEARCH | SWT.ICON_CANCEL);
+        searchText.setMessage("e.g. 21 temurin linux aarch64 tar");
+        searchText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        searchText.addModifyListener(e -> search());
+        searchText.addKeyListener(new KeyAdapter() {
+            @Override public void keyPressed(final KeyEvent e) {
+                if (SWT.ARROW_DOWN != e.keyCode || hits.isEmpty()) { return; }
+                resultList.setFocus();
+                e.doit = false;
+            }
+        });
+        searchText.addSelectionListener(new SelectionAdapter() {
+            @Override public void widgetDefaultSelected(final SelectionEvent e) {
+                okPressed();
+            }
+        });
+
+        resultList = new org.eclipse.swt.widgets.List(container, SWT.SINGLE | SWT.BORDER | SWT.V_SCROLL | SWT.H_SCROLL);
+        resultList.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        resultList.addSelectionListener(new SelectionAdapter() {
+            @Override public void widgetSelected(final SelectionEvent e) { selectHit(); }
+
+            @Override public void widgetDefaultSelected(final SelectionEvent e) { okPressed(); }
+        });
+
+        statusLabel = new Label(container, SWT.NONE);
+        statusLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+        extractCheckBox = new Button(container, SWT.CHECK);
+        extractCheckBox.setText("Extract");
+        extractCheckBox.setToolTipText("Extract the archive into the selected folder instead of saving it");
+        extractCheckBox.setEnabled(false);
+
+        index.addChangeListener(indexListener);
+        search();
+        return container;
+    }
+
+    @Override protected void createButtonsForButtonBar(final Composite parent) {
+        createButton(parent, IDialogConstants.OK_ID, "Download...", true).setEnabled(false);
+        createButton(parent, IDialogConstants.CANCEL_ID, IDialogConstants.CANCEL_LABEL, false);
+    }
+
+    @Override protected void configureShell(final Shell newShell) {
+        super.configureShell(newShell);
+        newShell.setText("Foojay JDK Quick Pick");
+    }
+
+    @Override protected Point getInitialSize() { return new Point(560, 420); }
+
+    @Override protected boolean isResizable() { return true; }
+
+    @Override protected void okPressed() {
+        final Hit hit = getSelectedHit();
+        if (null == hit) { return; }
+
+        DirectoryDialog dialog = new DirectoryDialog(getShell());
+        dialog.setMessage("Select destination folder");
+        dialog.setText("Select destination folder");
+        dialog.setFilterPath(System.getProperty("user.home"));
+        String targetFolder = dialog.open();
+        if (null == targetFolder) { return; }
+
+        final boolean extract = extractCheckBox.getEnabled() && extractCheckBox.getSelection();
+        DownloadManager.getDefault().enqueue(hit.getPkg(), Path.of(targetFolder), extract, DownloadListener.NONE);
+        super.okPressed();
+    }
+
+    @Override public boolean close() {
+        index.removeChangeListener(indexListener);
+        return super.close();
+    }
+
+
+    private void search() {
+        final Hit selected = getSelectedHit();
+        hits = index.search(searchText.getText());
+        resultList.setItems(hits.stream().map(hit -> hit.getFileName() + "  (" + hit.getDistributionName() + " " + hit.getVersion() + ")").collect(Collectors.toList()).toArray(new String[0]));
+        // keep the selection while packages are added in the background
+        for (int i = 0 ; null != selected && i < hits.size() ; i++) {
+            if (Objects.equals(hits.get(i).getFileName(), selected.getFileName())) { resultList.select(i); }
+        }
+        if (resultList.getSelectionIndex() < 0 && !hits.isEmpty()) { resultList.select(0); }
+        final int size = index.size();
+        statusLabel.setText(0 == size ? "Loading catalog..." : hits.size() >= PkgSearchIndex.MAX_RESULTS ? "First " + hits.size() + " of " + size + " packages" : hits.size() + " of " + size + " packages");
+        selectHit();
+    }
+
+    private void selectHit() {
+        final Hit    hit      = getSelectedHit();
+        final Button okButton = getButton(IDialogConstants.OK_ID);
+        if (null != okButton) { okButton.setEnabled(null != hit); }
+        extractCheckBox.setEnabled(null != hit && ArchiveExtractor.isSupported(hit.getArchiveType()));
+    }
+
+    private Hit getSelectedHit() {
+        if (null == resultList || resultList.isDisposed()) { return null; }
+        final int selectedIndex = resultList.getSelectionIndex();
+        return selectedIndex < 0 || selectedIndex >= hits.size() ? null : hits.get(selectedIndex);
+    }
+}
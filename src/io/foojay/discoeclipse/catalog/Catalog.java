@@ -0,0 +1,143 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+
+import io.foojay.api.discoclient.DiscoClient;
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.MajorVersion;
+import io.foojay.api.discoclient.pkg.Match;
+import io.foojay.api.discoclient.pkg.PackageType;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.api.discoclient.pkg.ReleaseStatus;
+import io.foojay.api.discoclient.pkg.Scope;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.pkg.VersionNumber;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.catalog.CatalogCache.Codec;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.net.Mirror;
+
+
+/**
+ * The Disco API requests of the plugin, all answered through the catalog cache. The dialog,
+ * the resolver and the warm-up use the same requests, so whatever one of them loaded is
+ * available to the others. In mirror mode the entries are taken from the mirror, the Disco
+ * API is only asked for entries the mirror does not have.
+ */
+public class Catalog {
+    public  static final List<Scope>  SCOPES               = List.of(Scope.PUBLIC, Scope.DIRECTLY_DOWNLOADABLE, Scope.BUILD_OF_OPEN_JDK);
+    private static final List<String> JAVAFX_DISTRIBUTIONS = List.of("zulu", "liberica", "corretto");
+    private static       Catalog      defaultCatalog;
+
+    private final CatalogCache catalogCache;
+    private final Mirror       mirror;
+    private final Metrics      metrics;
+    private DiscoClient        discoClient;
+
+
+    public Catalog(final CatalogCache catalogCache, final Mirror mirror, final Metrics metrics) {
+        this.catalogCache = catalogCache;
+        this.mirror       = mirror;
+        this.metrics      = metrics;
+    }
+
+
+    public static synchronized Catalog getDefault() {
+        if (null == defaultCatalog) { defaultCatalog = new Catalog(CatalogCache.getDefault(), Mirror.getDefault(), Metrics.getDefault()); }
+        return defaultCatalog;
+    }
+
+
+    public CatalogCache getCatalogCache() { return catalogCache; }
+
+    public CompletableFuture<List<MajorVersion>> getMaintainedMajorVersions(final Consumer<List<MajorVersion>> onRefresh) {
+        return get("maintained-major-versions", Codec.MAJOR_VERSION, () -> metrics.timeApiCall("getMaintainedMajorVersions", getDiscoClient().getMaintainedMajorVersionsAsync(true, true)), onRefresh);
+    }
+
+    /** Returns the packages of the given major version from the distributions that bundle javafx */
+    public CompletableFuture<List<Pkg>> getJavafxPkgs(final MajorVersion majorVersion) {
+        final boolean earlyAccess    = majorVersion.isEarlyAccessOnly();
+        final int     featureVersion = majorVersion.getAsInt();
+        return get("pkgs-fx-" + featureVersion + (earlyAccess ? "-ea" : "-ga"), Codec.PKG, () -> {
+            List<Distribution> distributions = JAVAFX_DISTRIBUTIONS.stream().map(DiscoClient::getDistributionFromText).collect(Collectors.toList());
+            return metrics.timeApiCall("getPkgsForFeatureVersion", getDiscoClient().getPkgsForFeatureVersionAsync(distributions, featureVersion, List.of(earlyAccess ? ReleaseStatus.EA : ReleaseStatus.GA), true, SCOPES, Match.ANY));
+        }, null);
+    }
+
+    /** Returns the packages of all versions of the given feature version, the distribution may be null for all distributions */
+    public CompletableFuture<List<Pkg>> getPkgs(final Distribution distribution, final int featureVersion, final boolean earlyAccess) {
+        return get("pkgs-feature-" + getKey(distribution) + "-" + featureVersion + (earlyAccess ? "-ea" : "-ga"), Codec.PKG,
+                                () -> metrics.timeApiCall("getPkgsForFeatureVersion", getDiscoClient().getPkgsForFeatureVersionAsync(null == distribution ? List.of() : List.of(distribution), featureVersion,
+                                                                                                                                     List.of(earlyAccess ? ReleaseStatus.EA : ReleaseStatus.GA), true, SCOPES, Match.ANY)), null);
+    }
+
+    /** Returns the JDK packages of the given version, the distribution may be null for all distributions */
+    public CompletableFuture<List<Pkg>> getPkgs(final Distribution distribution, final SemVer version) {
+        final String versionText = version.toString(true);
+        return get("pkgs-" + getKey(distribution) + "-" + versionText, Codec.PKG,
+                                () -> metrics.timeApiCall("getPkgs", getDiscoClient().getPkgsAsync(null == distribution ? null : List.of(distribution), VersionNumber.fromText(versionText), null, null, null, null, null, null,
+                                                                                                   PackageType.JDK, null, true, null, null, SCOPES, Match.ANY)), null);
+    }
+
+    public CompletableFuture<List<Distribution>> getDistributions(final SemVer version) {
+        return get("distributions-" + version.toString(true), Codec.DISTRIBUTION, () -> metrics.timeApiCall("getDistributionsForSemVer", getDiscoClient().getDistributionsForSemVerAsync(version)), null);
+    }
+
+    /** Returns the distinct versions of the major version in the order they are offered, newest first */
+    public static List<SemVer> getVersions(final MajorVersion majorVersion) {
+        final boolean includeBuild = majorVersion.isEarlyAccessOnly();
+        return majorVersion.getVersions()
+                           .stream()
+                           .filter(semVer -> includeBuild ? (semVer.getReleaseStatus() == ReleaseStatus.EA) : (semVer.getReleaseStatus() == ReleaseStatus.GA))
+                           .map(semVer -> VersionKey.of(semVer, includeBuild))
+                           .distinct()
+                           .sorted(Comparator.reverseOrder())
+                           .map(VersionKey::toSemVer)
+                           .collect(Collectors.toList());
+    }
+
+    /** Returns the directly downloadable distributions in the order they are offered */
+    public static List<Distribution> getOffered(final Collection<Distribution> distributions) {
+        return distributions.stream()
+                            .filter(distribution -> distribution.getScopes().contains(Scope.DIRECTLY_DOWNLOADABLE))
+                            .sorted(Comparator.comparing(Distribution::getName).reversed())
+                            .collect(Collectors.toList());
+    }
+
+
+    private <T> CompletableFuture<List<T>> get(final String key, final Codec<T> codec, final Supplier<CompletableFuture<? extends Iterable<T>>> loader, final Consumer<List<T>> onRefresh) {
+        return catalogCache.get(key, codec, () -> mirror.isEnabled() ? loadMirrored(key, codec, loader) : loader.get(), onRefresh);
+    }
+
+    private <T> CompletableFuture<Iterable<T>> loadMirrored(final String key, final Codec<T> codec, final Supplier<CompletableFuture<? extends Iterable<T>>> loader) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                final String text = mirror.getText(mirror.getCatalogUri(CatalogCache.getFileName(key)));
+                return null == text ? null : CatalogCache.parse(text, codec);
+            } catch (IOException e) {
+                Platform.getLog(Catalog.class).log(new Status(IStatus.INFO, Constants.PLUGIN_ID, "Mirror not available for " + key + ", asking the Disco API", e));
+                return null;
+            }
+        }, DiscoExecutors.get(Workload.CATALOG)).thenCompose(values -> null == values ? loader.get().<Iterable<T>>thenApply(upstream -> upstream) : CompletableFuture.completedFuture(values));
+    }
+
+    private synchronized DiscoClient getDiscoClient() {
+        if (null == discoClient) { discoClient = new DiscoClient(Constants.USER_AGENT); }
+        return discoClient;
+    }
+
+    private static String getKey(final Distribution distribution) { return null == distribution ? "all" : distribution.getApiString(); }
+}
@@ -0,0 +1,390 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.prefs.BackingStoreException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.MajorVersion;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.metrics.Metrics;
+
+
+/**
+ * Versioned on-disk cache for the catalog data the plugin fetches from the Disco API.
+ * Entries are served immediately, stale entries are revalidated in the background and
+ * in offline mode only cached entries are used.
+ */
+public class CatalogCache {
+    public  static final int      FORMAT_VERSION = 1;
+    public  static final Duration DEFAULT_TTL    = Duration.ofHours(6);
+    private static final String   FIELD_FORMAT   = "format";
+    private static final String   FIELD_CREATED  = "created";
+    private static final String   FIELD_DATA     = "data";
+    private static       CatalogCache defaultCache;
+
+    private final Path               directory;
+    private final Duration           ttl;
+    private final Map<String, Entry> entries;
+    private final Set<String>        refreshing;
+    private final Map<String, Request<?>> requests;
+    private final List<Consumer<String>>  storeListeners;
+    private volatile boolean         offline;
+
+
+    public CatalogCache(final Path directory, final Duration ttl) {
+        this.directory      = directory;
+        this.ttl            = ttl;
+        this.entries        = new ConcurrentHashMap<>();
+        this.refreshing     = ConcurrentHashMap.newKeySet();
+        this.requests       = new ConcurrentHashMap<>();
+        this.storeListeners = new CopyOnWriteArrayList<>();
+        this.offline        = false;
+    }
+
+
+    public static synchronized CatalogCache getDefault() {
+        if (null == defaultCache) {
+            Path stateLocation = Platform.getStateLocation(FrameworkUtil.getBundle(CatalogCache.class)).toFile().toPath();
+            defaultCache = new CatalogCache(stateLocation.resolve("catalog").resolve("v" + FORMAT_VERSION), DEFAULT_TTL);
+            defaultCache.offline = getPreferences().getBoolean(Constants.PREFERENCE_OFFLINE, false);
+        }
+        return defaultCache;
+    }
+
+
+    public Duration getTtl() { return ttl; }
+
+    public boolean isOffline() { return offline; }
+    public void setOffline(final boolean offline) {
+        this.offline = offline;
+        if (this != defaultCache) { return; }
+        IEclipsePreferences preferences = getPreferences();
+        preferences.putBoolean(Constants.PREFERENCE_OFFLINE, offline);
+        try {
+            preferences.flush();
+        } catch (BackingStoreException e) {
+            log("Could not store offline preference", e);
+        }
+    }
+
+    /**
+     * Returns the cached values for the given key if available and loads them otherwise.
+     * If the cached values are older than the ttl they will be returned anyway and the
+     * given loader will be used to refresh them in the background. The onRefresh consumer
+     * will only be called if the refreshed values differ from the cached ones.
+     * Concurrent loads of the same key share one request which will be cancelled as soon
+     * as all returned futures have been cancelled.
+     */
+    public <T> CompletableFuture<List<T>> get(final String key, final Codec<T> codec, final Supplier<CompletableFuture<? extends Iterable<T>>> loader, final Consumer<List<T>> onRefresh) {
+        final Entry   entry = lookup(key);
+        final boolean stale = null != entry && entry.isStale(ttl);
+        Metrics.getDefault().recordCacheLookup(key, null != entry, stale);
+        if (null != entry) {
+            if (!offline && stale) { revalidate(key, codec, loader, onRefresh, entry); }
+            return CompletableFuture.completedFuture(entry.decode(codec));
+        }
+        if (offline) { return CompletableFuture.completedFuture(List.of()); }
+        return load(key, codec, loader);
+    }
+
+    /** Returns the cached values for the given key without loading them, null if there are none */
+    public <T> List<T> getCached(final String key, final Codec<T> codec) {
+        final Entry entry = lookup(key);
+        return null == entry ? null : entry.decode(codec);
+    }
+
+    /** The listener is called with the key of every entry that was loaded or refreshed */
+    public void addStoreListener(final Consumer<String> listener) { storeListeners.add(listener); }
+    public void removeStoreListener(final Consumer<String> listener) { storeListeners.remove(listener); }
+
+    /**
+     * Copies all stored entries into the given directory, e.g. to publish them as catalog
+     * of a mirror. The files keep the format and names of the cache.
+     */
+    public void export(final Path target) throws IOException {
+        Files.createDirectories(target);
+        if (!Files.isDirectory(directory)) { return; }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.getFileName().toString().endsWith(".json"))::iterator) {
+                Files.copy(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /** Returns the name of the file the entry with the given key is stored in */
+    public static String getFileName(final String key) { return key.replaceAll("[^a-zA-Z0-9._-]", "_") + ".json"; }
+
+    /** Decodes the values of a cache file, returns null if the file has a different format */
+    public static <T> List<T> parse(final String text, final Codec<T> codec) {
+        try {
+            JsonObject json = JsonParser.parseString(text).getAsJsonObject();
+            if (!json.has(FIELD_FORMAT) || json.get(FIELD_FORMAT).getAsInt() != FORMAT_VERSION) { return null; }
+            List<String> items = new ArrayList<>();
+            for (JsonElement element : json.getAsJsonArray(FIELD_DATA)) { items.add(element.toString()); }
+            return codec.decode(items);
+        } catch (JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    public void invalidate(final String key) {
+        entries.remove(key);
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException e) {
+            log("Could not delete cache entry " + key, e);
+        }
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<List<T>> load(final String key, final Codec<T> codec, final Supplier<CompletableFuture<? extends Iterable<T>>> loader) {
+        while (true) {
+            Request<T> request = (Request<T>) requests.get(key);
+            if (null == request) {
+                Request<T> created = new Request<>();
+                request = (Request<T>) requests.putIfAbsent(key, created);
+                if (null == request) {
+                    created.source.whenComplete((values, throwable) -> requests.remove(key, created));
+                    created.start(call(loader).thenApply(values -> store(key, codec, values).decode(codec)));
+                    request = created;
+                }
+            }
+            CompletableFuture<List<T>> subscription = request.subscribe();
+            if (null != subscription) { return subscription; }
+            requests.remove(key, request);
+        }
+    }
+
+    private <T> void revalidate(final String key, final Codec<T> codec, final Supplier<CompletableFuture<? extends Iterable<T>>> loader, final Consumer<List<T>> onRefresh, final Entry cached) {
+        if (!refreshing.add(key)) { return; }
+        call(loader).whenComplete((values, throwable) -> {
+            refreshing.remove(key);
+            if (null != throwable || null == values) { return; }
+            Entry refreshed = store(key, codec, values);
+            if (null != onRefresh && !refreshed.hasSameValues(cached)) { onRefresh.accept(refreshed.decode(codec)); }
+        });
+    }
+
+    /** A loader that throws, e.g. because its executor rejected the task, fails the returned future instead */
+    private static <T> CompletableFuture<? extends Iterable<T>> call(final Supplier<CompletableFuture<? extends Iterable<T>>> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Entry lookup(final String key) {
+        Entry entry = entries.get(key);
+        if (null != entry) { return entry; }
+
+        Path file = fileFor(key);
+        if (!Files.exists(file)) { return null; }
+        try {
+            JsonObject json = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+            if (!json.has(FIELD_FORMAT) || json.get(FIELD_FORMAT).getAsInt() != FORMAT_VERSION) { return null; }
+            List<String> items = new ArrayList<>();
+            for (JsonElement element : json.getAsJsonArray(FIELD_DATA)) { items.add(element.toString()); }
+            entry = new Entry(json.get(FIELD_CREATED).getAsLong(), items);
+            entries.put(key, entry);
+            return entry;
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            log("Ignoring unreadable cache entry " + key, e);
+            return null;
+        }
+    }
+
+    private <T> Entry store(final String key, final Codec<T> codec, final Iterable<T> values) {
+        List<String> items = new ArrayList<>();
+        values.forEach(value -> items.add(codec.encode(value)));
+        Entry entry = new Entry(System.currentTimeMillis(), items);
+        entries.put(key, entry);
+
+        JsonArray data = new JsonArray();
+        items.forEach(item -> data.add(JsonParser.parseString(item)));
+        JsonObject json = new JsonObject();
+        json.addProperty(FIELD_FORMAT, FORMAT_VERSION);
+        json.addProperty(FIELD_CREATED, entry.created);
+        json.add(FIELD_DATA, data);
+        try {
+            Files.createDirectories(directory);
+            Path file = fileFor(key);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            Files.writeString(temp, json.toString(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log("Could not write cache entry " + key, e);
+        }
+        storeListeners.forEach(listener -> listener.accept(key));
+        return entry;
+    }
+
+    private Path fileFor(final String key) {
+        return directory.resolve(getFileName(key));
+    }
+
+    private static IEclipsePreferences getPreferences() {
+        return InstanceScope.INSTANCE.getNode(Constants.PLUGIN_ID);
+    }
+
+    private static void log(final String message, final Throwable throwable) {
+        Platform.getLog(CatalogCache.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, message, throwable));
+    }
+
+
+    public interface Codec<T> {
+        Codec<Pkg>          PKG           = new Codec<>() {
+            @Override public String encode(final Pkg pkg) { return CompactCatalog.toJson(pkg); }
+            @Override public Pkg decode(final String json) { return new Pkg(json); }
+            // package lists are the bulk of the cache, they are kept in columns
+            @Override public List<Pkg> decode(final List<String> json) { return CompactCatalog.of(json); }
+        };
+        Codec<Distribution> DISTRIBUTION  = new Codec<>() {
+            @Override public String encode(final Distribution distribution) { return distribution.toString(); }
+            @Override public Distribution decode(final String json) { return new Distribution(json); }
+        };
+        Codec<MajorVersion> MAJOR_VERSION = new Codec<>() {
+            @Override public String encode(final MajorVersion majorVersion) {
+                JsonArray versions = new JsonArray();
+                majorVersion.getVersions().forEach(semVer -> versions.add(semVer.toString()));
+                JsonObject json = new JsonObject();
+                json.addProperty(MajorVersion.FIELD_MAJOR_VERSION, majorVersion.getAsInt());
+                json.addProperty(MajorVersion.FIELD_TERM_OF_SUPPORT, majorVersion.getTermOfSupport().getApiString());
+                json.addProperty(MajorVersion.FIELD_MAINTAINED, majorVersion.isMaintained());
+                json.add(MajorVersion.FIELD_VERSIONS, versions);
+                return json.toString();
+            }
+            @Override public MajorVersion decode(final String json) { return new MajorVersion(json); }
+        };
+
+
+        String encode(T value);
+
+        T decode(String json);
+
+        /** Decodes all values of an entry into an immutable list */
+        default List<T> decode(final List<String> json) {
+            List<T> values = new ArrayList<>(json.size());
+            json.forEach(item -> values.add(decode(item)));
+            return Collections.unmodifiableList(values);
+        }
+    }
+
+
+    private static class Request<T> {
+        private final CompletableFuture<List<T>> source      = new CompletableFuture<>();
+        private final AtomicInteger              subscribers = new AtomicInteger();
+
+
+        void start(final CompletableFuture<List<T>> loading) {
+            source.whenComplete((values, throwable) -> {
+                if (source.isCancelled()) { loading.cancel(true); }
+            });
+            loading.whenComplete((values, throwable) -> {
+                if (null == throwable) {
+                    source.complete(values);
+                } else {
+                    source.completeExceptionally(throwable);
+                }
+            });
+        }
+
+        CompletableFuture<List<T>> subscribe() {
+            if (subscribers.getAndUpdate(count -> count < 0 ? count : count + 1) < 0) { return null; }
+            CompletableFuture<List<T>> subscription = new CompletableFuture<>();
+            subscription.whenComplete((values, throwable) -> {
+                if (subscription.isCancelled() && subscribers.decrementAndGet() == 0 && subscribers.compareAndSet(0, -1)) { source.cancel(true); }
+            });
+            source.whenComplete((values, throwable) -> {
+                if (null == throwable) {
+                    subscription.complete(values);
+                } else {
+                    subscription.completeExceptionally(throwable);
+                }
+            });
+            return subscription;
+        }
+    }
+
+
+    /** Keeps the JSON of an entry only until it is decoded, a digest tells whether a refresh changed it */
+    private static class Entry {
+        private final long         created;
+        private final byte[]       digest;
+        private List<String>       json;
+        private volatile List<?>   decoded;
+
+
+        Entry(final long created, final List<String> json) {
+            this.created = created;
+            this.digest  = digest(json);
+            this.json    = json;
+        }
+
+
+        boolean isStale(final Duration ttl) {
+            return System.currentTimeMillis() - created > ttl.toMillis();
+        }
+
+        boolean hasSameValues(final Entry entry) {
+            return Arrays.equals(digest, entry.digest);
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized <T> List<T> decode(final Codec<T> codec) {
+            if (null == decoded) {
+                decoded = codec.decode(Collections.unmodifiableList(json));
+                json    = null;
+            }
+            return (List<T>) decoded;
+        }
+
+        private static byte[] digest(final List<String> json) {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                json.forEach(item -> {
+                    digest.update(item.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) '\n');
+                });
+                return digest.digest();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
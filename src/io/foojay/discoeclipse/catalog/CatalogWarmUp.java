@@ -0,0 +1,124 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.MajorVersion;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.pkg.TermOfSupport;
+import io.foojay.discoeclipse.Constants;
+
+
+/**
+ * Loads the catalog data the JDK dialog needs for its initial selection and for the latest
+ * LTS release into the catalog cache, so the dialog opens populated. The package lists
+ * contain all operating systems and architectures, the host platform is picked from them
+ * without further requests. The job runs with the lowest priority, i.e. when the workbench
+ * is idle, once after startup. Later it only refreshes stale data after the dialog or the
+ * resolver has been used, an idle workbench does not keep polling the API.
+ */
+public class CatalogWarmUp extends Job {
+    public  static final long          STARTUP_DELAY = 5_000;
+    private static final long          POLL_INTERVAL = 250;
+    private static       CatalogWarmUp defaultWarmUp;
+
+    private final    Catalog catalog;
+    private volatile long    lastRun;
+
+
+    public CatalogWarmUp(final Catalog catalog) {
+        super("Loading JDK catalog");
+        this.catalog = catalog;
+        setSystem(true);
+        setPriority(Job.DECORATE);
+    }
+
+
+    public static synchronized CatalogWarmUp getDefault() {
+        if (null == defaultWarmUp) { defaultWarmUp = new CatalogWarmUp(Catalog.getDefault()); }
+        return defaultWarmUp;
+    }
+
+    public static boolean isEnabled() { return InstanceScope.INSTANCE.getNode(Constants.PLUGIN_ID).getBoolean(Constants.PREFERENCE_WARM_UP, true); }
+
+
+    /** Called by the users of the catalog, refreshes the warmed up data if it turned stale since the last run */
+    public void used() {
+        if (!isEnabled() || Job.NONE != getState()) { return; }
+        if (System.currentTimeMillis() - lastRun < catalog.getCatalogCache().getTtl().toMillis()) { return; }
+        // after the requests of the caller, which usually load part of the same data
+        schedule(STARTUP_DELAY);
+    }
+
+
+    @Override protected IStatus run(final IProgressMonitor monitor) {
+        if (!isEnabled()) { return Status.OK_STATUS; }
+        try {
+            final List<MajorVersion> majorVersions = await(catalog.getMaintainedMajorVersions(null), monitor);
+            for (MajorVersion majorVersion : getLikelySelections(majorVersions)) {
+                if (monitor.isCanceled()) { return Status.CANCEL_STATUS; }
+                warmUp(majorVersion, monitor);
+            }
+        } catch (InterruptedException e) {
+            return Status.CANCEL_STATUS;
+        } catch (ExecutionException e) {
+            // the dialog will load the data itself
+            Platform.getLog(CatalogWarmUp.class).log(new Status(IStatus.INFO, Constants.PLUGIN_ID, "Could not prefetch catalog data", e.getCause()));
+        }
+        if (monitor.isCanceled()) { return Status.CANCEL_STATUS; }
+        lastRun = System.currentTimeMillis();
+        return Status.OK_STATUS;
+    }
+
+
+    /** The dialog starts with the first maintained version, most users pick the latest LTS release */
+    private static List<MajorVersion> getLikelySelections(final List<MajorVersion> majorVersions) {
+        final List<MajorVersion> selections = new ArrayList<>();
+        if (majorVersions.isEmpty()) { return selections; }
+        selections.add(majorVersions.get(0));
+        majorVersions.stream()
+                     .filter(majorVersion -> TermOfSupport.LTS == majorVersion.getTermOfSupport() && !Boolean.TRUE.equals(majorVersion.isEarlyAccessOnly()))
+                     .max(Comparator.comparingInt(MajorVersion::getAsInt))
+                     .filter(lts -> lts.getAsInt() != selections.get(0).getAsInt())
+                     .ifPresent(selections::add);
+        return selections;
+    }
+
+    /** Requests what the dialog requests when the given major version gets selected */
+    private void warmUp(final MajorVersion majorVersion, final IProgressMonitor monitor) throws InterruptedException, ExecutionException {
+        final CompletableFuture<?> javafxPkgs = catalog.getJavafxPkgs(majorVersion);
+        final List<SemVer>         versions   = Catalog.getVersions(majorVersion);
+        if (!versions.isEmpty()) {
+            final List<Distribution> distributions = Catalog.getOffered(await(catalog.getDistributions(versions.get(0)), monitor));
+            if (!distributions.isEmpty()) { await(catalog.getPkgs(distributions.get(0), versions.get(0)), monitor); }
+        }
+        await(javafxPkgs, monitor);
+    }
+
+    private static <T> T await(final CompletableFuture<T> future, final IProgressMonitor monitor) throws InterruptedException, ExecutionException {
+        while (true) {
+            if (monitor.isCanceled()) {
+                future.cancel(true);
+                throw new InterruptedException();
+            }
+            try {
+                return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check for cancellation again
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.DiscoClient;
+import io.foojay.api.discoclient.pkg.ApiFeature;
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.LibCType;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.PackageType;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.api.discoclient.pkg.ReleaseStatus;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.pkg.TermOfSupport;
+
+
+/**
+ * Package list stored in columns instead of Pkg objects. Enums are kept as ordinals in
+ * byte arrays, the distribution as index into a table of distinct distributions, versions
+ * as the packed longs of VersionKey and the remaining fields as interned strings. Neither
+ * the packages nor their JSON are kept, get() writes the JSON of a row from its columns
+ * and creates the Pkg from it, so scanning and filtering never allocates one. Distributions
+ * are looked up once per distinct distribution. The list is immutable and may be shared by
+ * threads.
+ */
+public final class CompactCatalog extends AbstractList<Pkg> implements RandomAccess {
+    public  static final CompactCatalog       EMPTY                  = new CompactCatalog(0, row -> null);
+    private static final OperatingSystem[]    OPERATING_SYSTEMS      = OperatingSystem.values();
+    private static final Architecture[]       ARCHITECTURES          = Architecture.values();
+    private static final LibCType[]           LIBC_TYPES             = LibCType.values();
+    private static final ArchiveType[]        ARCHIVE_TYPES          = ArchiveType.values();
+    private static final PackageType[]        PACKAGE_TYPES          = PackageType.values();
+    private static final ReleaseStatus[]      RELEASE_STATUSES       = ReleaseStatus.values();
+    private static final TermOfSupport[]      TERMS_OF_SUPPORT       = TermOfSupport.values();
+    private static final byte                 JAVAFX_BUNDLED         = 1;
+    private static final byte                 DIRECTLY_DOWNLOADABLE  = 1 << 1;
+    private static final byte                 FREE_USE_IN_PROD       = 1 << 2;
+    private static final byte                 LATEST_BUILD_AVAILABLE = 1 << 3;
+    private static final String               NOT_FOUND              = "NOT_FOUND";
+    private static final Map<Enum<?>, String> TEXTS                  = new HashMap<>();
+
+    static {
+        putTexts(OPERATING_SYSTEMS, OperatingSystem::fromText);
+        putTexts(ARCHITECTURES, Architecture::fromText);
+        putTexts(LIBC_TYPES, LibCType::fromText);
+        putTexts(ARCHIVE_TYPES, ArchiveType::fromText);
+        putTexts(PACKAGE_TYPES, PackageType::fromText);
+        putTexts(RELEASE_STATUSES, ReleaseStatus::fromText);
+        putTexts(TERMS_OF_SUPPORT, TermOfSupport::fromText);
+    }
+
+    private final String[]       ids;
+    private final String[]       fileNames;
+    private final String[]       ephemeralIds;
+    private final String[]       javaVersions;
+    private final String[]       distributionVersions;
+    private final short[]        distributions;
+    private final byte[]         operatingSystems;
+    private final byte[]         architectures;
+    private final byte[]         libcTypes;
+    private final byte[]         archiveTypes;
+    private final byte[]         packageTypes;
+    private final byte[]         releaseStatuses;
+    private final byte[]         termsOfSupport;
+    private final byte[]         flags;
+    private final long[]         versions;
+    private final long[]         qualifiers;
+    private final String[]       distributionNames;
+    private final Distribution[] distributionTable;
+
+
+    private CompactCatalog(final int size, final IntFunction<JsonObject> pkgs) {
+        this.ids                  = new String[size];
+        this.fileNames            = new String[size];
+        this.ephemeralIds         = new String[size];
+        this.javaVersions         = new String[size];
+        this.distributionVersions = new String[size];
+        this.distributions        = new short[size];
+        this.operatingSystems     = new byte[size];
+        this.architectures        = new byte[size];
+        this.libcTypes            = new byte[size];
+        this.archiveTypes         = new byte[size];
+        this.packageTypes         = new byte[size];
+        this.releaseStatuses      = new byte[size];
+        this.termsOfSupport       = new byte[size];
+        this.flags                = new byte[size];
+        this.versions             = new long[size];
+        this.qualifiers           = new long[size];
+
+        final Map<String, Short> distributionIndices = new HashMap<>();
+        for (int row = 0 ; row < size ; row++) {
+            final JsonObject pkg = pkgs.apply(row);
+            ids[row]                  = intern(getString(pkg, Pkg.FIELD_ID));
+            fileNames[row]            = intern(getString(pkg, Pkg.FIELD_FILENAME));
+            ephemeralIds[row]         = intern(getString(pkg, Pkg.FIELD_EPHEMERAL_ID));
+            javaVersions[row]         = intern(getString(pkg, Pkg.FIELD_JAVA_VERSION));
+            distributionVersions[row] = intern(getString(pkg, Pkg.FIELD_DISTRIBUTION_VERSION));
+            operatingSystems[row]     = ordinal(pkg, Pkg.FIELD_OPERATING_SYSTEM, OperatingSystem::fromText);
+            architectures[row]        = ordinal(pkg, Pkg.FIELD_ARCHITECTURE, Architecture::fromText);
+            libcTypes[row]            = ordinal(pkg, Pkg.FIELD_LIB_C_TYPE, LibCType::fromText);
+            archiveTypes[row]         = ordinal(pkg, Pkg.FIELD_ARCHIVE_TYPE, ArchiveType::fromText);
+            packageTypes[row]         = ordinal(pkg, Pkg.FIELD_PACKAGE_TYPE, PackageType::fromText);
+            releaseStatuses[row]      = ordinal(pkg, Pkg.FIELD_RELEASE_STATUS, ReleaseStatus::fromText);
+            termsOfSupport[row]       = ordinal(pkg, Pkg.FIELD_TERM_OF_SUPPORT, TermOfSupport::fromText);
+            flags[row]                = (byte) ((getBoolean(pkg, Pkg.FIELD_JAVAFX_BUNDLED)         ? JAVAFX_BUNDLED         : 0)
+                                              | (getBoolean(pkg, Pkg.FIELD_DIRECTLY_DOWNLOADABLE)  ? DIRECTLY_DOWNLOADABLE  : 0)
+                                              | (getBoolean(pkg, Pkg.FIELD_FREE_USE_IN_PROD)       ? FREE_USE_IN_PROD       : 0)
+                                              | (getBoolean(pkg, Pkg.FIELD_LATEST_BUILD_AVAILABLE) ? LATEST_BUILD_AVAILABLE : 0));
+            final SemVer semVer = null == javaVersions[row] ? null : SemVer.fromText(javaVersions[row]).getSemVer1();
+            if (null != semVer) {
+                versions[row]   = VersionKey.pack(semVer.getVersionNumber());
+                qualifiers[row] = VersionKey.qualify(semVer);
+            }
+            final String distribution = getString(pkg, Pkg.FIELD_DISTRIBUTION);
+            distributions[row] = null == distribution ? -1 : distributionIndices.computeIfAbsent(distribution, name -> (short) distributionIndices.size());
+        }
+        // names are kept as api strings, older cache entries hold the names Pkg.toString() wrote
+        this.distributionNames = new String[distributionIndices.size()];
+        this.distributionTable = new Distribution[distributionNames.length];
+        distributionIndices.forEach((name, index) -> {
+            final Distribution distribution = getDistribution(name);
+            distributionTable[index] = distribution;
+            distributionNames[index] = null == distribution ? name : distribution.getApiString();
+        });
+    }
+
+    private CompactCatalog(final CompactCatalog catalog, final int[] rows) {
+        this.ids                  = copy(catalog.ids, rows, new String[rows.length]);
+        this.fileNames            = copy(catalog.fileNames, rows, new String[rows.length]);
+        this.ephemeralIds         = copy(catalog.ephemeralIds, rows, new String[rows.length]);
+        this.javaVersions         = copy(catalog.javaVersions, rows, new String[rows.length]);
+        this.distributionVersions = copy(catalog.distributionVersions, rows, new String[rows.length]);
+        this.distributions        = new short[rows.length];
+        this.operatingSystems     = copy(catalog.operatingSystems, rows);
+        this.architectures        = copy(catalog.architectures, rows);
+        this.libcTypes            = copy(catalog.libcTypes, rows);
+        this.archiveTypes         = copy(catalog.archiveTypes, rows);
+        this.packageTypes         = copy(catalog.packageTypes, rows);
+        this.releaseStatuses      = copy(catalog.releaseStatuses, rows);
+        this.termsOfSupport       = copy(catalog.termsOfSupport, rows);
+        this.flags                = copy(catalog.flags, rows);
+        this.versions             = new long[rows.length];
+        this.qualifiers           = new long[rows.length];
+        for (int i = 0 ; i < rows.length ; i++) {
+            distributions[i] = catalog.distributions[rows[i]];
+            versions[i]      = catalog.versions[rows[i]];
+            qualifiers[i]    = catalog.qualifiers[rows[i]];
+        }
+        // the tables are immutable and small, they are shared with the original catalog
+        this.distributionNames = catalog.distributionNames;
+        this.distributionTable = catalog.distributionTable;
+    }
+
+
+    /** Creates the columns from the JSON of the packages, e.g. the entries of the catalog cache */
+    public static CompactCatalog of(final List<String> json) {
+        return json.isEmpty() ? EMPTY : new CompactCatalog(json.size(), row -> JsonParser.parseString(json.get(row)).getAsJsonObject());
+    }
+
+    /** Returns the given packages as compact catalog, a compact catalog is returned as it is */
+    public static CompactCatalog copyOf(final Collection<Pkg> pkgs) {
+        if (pkgs instanceof CompactCatalog) { return (CompactCatalog) pkgs; }
+        if (pkgs.isEmpty()) { return EMPTY; }
+        final List<Pkg> list = pkgs instanceof RandomAccess ? (List<Pkg>) pkgs : new ArrayList<>(pkgs);
+        return new CompactCatalog(list.size(), row -> toJsonObject(list.get(row)));
+    }
+
+    /**
+     * Returns the JSON of the given package in the format of the Disco API. Unlike
+     * Pkg.toString() it keeps the libc type and the directly downloadable flag and writes
+     * the distribution as api string, which is what Pkg reads back.
+     */
+    public static String toJson(final Pkg pkg) { return toJsonObject(pkg).toString(); }
+
+
+    /** Creates the Pkg of the given row from its columns, every call creates a new one */
+    @Override public Pkg get(final int row) { return new Pkg(getJson(row)); }
+
+    @Override public int size() { return ids.length; }
+
+    /** Returns the JSON of the package of the given row in the format of toJson() */
+    public String getJson(final int row) {
+        final JsonObject json = new JsonObject();
+        put(json, Pkg.FIELD_ID, ids[row]);
+        put(json, Pkg.FIELD_DISTRIBUTION, getDistributionName(row));
+        put(json, Pkg.FIELD_JAVA_VERSION, javaVersions[row]);
+        put(json, Pkg.FIELD_DISTRIBUTION_VERSION, distributionVersions[row]);
+        json.addProperty(Pkg.FIELD_LATEST_BUILD_AVAILABLE, (flags[row] & LATEST_BUILD_AVAILABLE) != 0);
+        put(json, Pkg.FIELD_ARCHITECTURE, getArchitecture(row));
+        put(json, Pkg.FIELD_OPERATING_SYSTEM, getOperatingSystem(row));
+        put(json, Pkg.FIELD_LIB_C_TYPE, getLibCType(row));
+        put(json, Pkg.FIELD_PACKAGE_TYPE, getPackageType(row));
+        put(json, Pkg.FIELD_RELEASE_STATUS, value(RELEASE_STATUSES, releaseStatuses[row]));
+        put(json, Pkg.FIELD_ARCHIVE_TYPE, getArchiveType(row));
+        put(json, Pkg.FIELD_TERM_OF_SUPPORT, value(TERMS_OF_SUPPORT, termsOfSupport[row]));
+        json.addProperty(Pkg.FIELD_JAVAFX_BUNDLED, isJavafxBundled(row));
+        json.addProperty(Pkg.FIELD_DIRECTLY_DOWNLOADABLE, isDirectlyDownloadable(row));
+        put(json, Pkg.FIELD_FILENAME, fileNames[row]);
+        put(json, Pkg.FIELD_EPHEMERAL_ID, ephemeralIds[row]);
+        json.addProperty(Pkg.FIELD_FREE_USE_IN_PROD, isFreeUseInProduction(row));
+        return json.toString();
+    }
+
+    public String getId(final int row) { return ids[row]; }
+
+    public String getFileName(final int row) { return fileNames[row]; }
+
+    /** Returns the api string of the distribution of the given row */
+    public String getDistributionName(final int row) { return distributions[row] < 0 ? null : distributionNames[distributions[row]]; }
+
+    /** Returns the distribution of the given row, rows of the same distribution share the instance */
+    public Distribution getDistribution(final int row) { return distributions[row] < 0 ? null : distributionTable[distributions[row]]; }
+
+    public OperatingSystem getOperatingSystem(final int row) { return value(OPERATING_SYSTEMS, operatingSystems[row]); }
+
+    public Architecture getArchitecture(final int row) { return value(ARCHITECTURES, architectures[row]); }
+
+    public LibCType getLibCType(final int row) { return value(LIBC_TYPES, libcTypes[row]); }
+
+    public ArchiveType getArchiveType(final int row) { return value(ARCHIVE_TYPES, archiveTypes[row]); }
+
+    public PackageType getPackageType(final int row) { return value(PACKAGE_TYPES, packageTypes[row]); }
+
+    public boolean isJavafxBundled(final int row) { return (flags[row] & JAVAFX_BUNDLED) != 0; }
+
+    public boolean isDirectlyDownloadable(final int row) { return (flags[row] & DIRECTLY_DOWNLOADABLE) != 0; }
+
+    public boolean isFreeUseInProduction(final int row) { return (flags[row] & FREE_USE_IN_PROD) != 0; }
+
+    /** Packed version of the given row, see VersionKey.pack() */
+    public long getVersion(final int row) { return versions[row]; }
+
+    /** Packed qualifier of the given row, see VersionKey.qualify() */
+    public long getQualifier(final int row) { return qualifiers[row]; }
+
+    /** Returns the given rows as list that creates their packages only when they are read */
+    public List<Pkg> rows(final int[] rows) {
+        return new Rows(rows);
+    }
+
+    /** Returns a catalog with the columns of the given rows only, it does not refer to this one */
+    public CompactCatalog copyRows(final int[] rows) {
+        return 0 == rows.length ? EMPTY : new CompactCatalog(this, rows);
+    }
+
+
+    private static JsonObject toJsonObject(final Pkg pkg) {
+        final JsonObject json = new JsonObject();
+        put(json, Pkg.FIELD_ID, pkg.getId());
+        if (null != pkg.getDistribution()) { json.addProperty(Pkg.FIELD_DISTRIBUTION, pkg.getDistribution().getApiString()); }
+        if (null != pkg.getJavaVersion()) { json.addProperty(Pkg.FIELD_JAVA_VERSION, pkg.getJavaVersion().toString()); }
+        if (null != pkg.getDistributionVersion()) { json.addProperty(Pkg.FIELD_DISTRIBUTION_VERSION, pkg.getDistributionVersion().toString()); }
+        json.addProperty(Pkg.FIELD_LATEST_BUILD_AVAILABLE, Boolean.TRUE.equals(pkg.isLatestBuildAvailable()));
+        put(json, Pkg.FIELD_ARCHITECTURE, pkg.getArchitecture());
+        put(json, Pkg.FIELD_OPERATING_SYSTEM, pkg.getOperatingSystem());
+        put(json, Pkg.FIELD_LIB_C_TYPE, pkg.getLibCType());
+        put(json, Pkg.FIELD_PACKAGE_TYPE, pkg.getPackageType());
+        put(json, Pkg.FIELD_RELEASE_STATUS, pkg.getReleaseStatus());
+        put(json, Pkg.FIELD_ARCHIVE_TYPE, pkg.getArchiveType());
+        put(json, Pkg.FIELD_TERM_OF_SUPPORT, pkg.getTermOfSupport());
+        json.addProperty(Pkg.FIELD_JAVAFX_BUNDLED, Boolean.TRUE.equals(pkg.isJavaFXBundled()));
+        json.addProperty(Pkg.FIELD_DIRECTLY_DOWNLOADABLE, Boolean.TRUE.equals(pkg.isDirectlyDownloadable()));
+        put(json, Pkg.FIELD_FILENAME, pkg.getFileName());
+        put(json, Pkg.FIELD_EPHEMERAL_ID, pkg.getEphemeralId());
+        json.addProperty(Pkg.FIELD_FREE_USE_IN_PROD, Boolean.TRUE.equals(pkg.getFreeUseInProduction()));
+        return json;
+    }
+
+    // Pkg fails on fields that are present but null, so null values are left out
+    private static void put(final JsonObject json, final String field, final String value) {
+        if (null != value) { json.addProperty(field, value); }
+    }
+
+    private static void put(final JsonObject json, final String field, final Enum<?> value) {
+        if (null != value) { json.addProperty(field, TEXTS.get(value)); }
+    }
+
+    /**
+     * The api strings of some constants read back as another one, e.g. alpine linux as linux,
+     * so every constant is written as the first of its texts that fromText() maps back to it.
+     */
+    private static <E extends Enum<E> & ApiFeature> void putTexts(final E[] values, final Function<String, E> fromText) {
+        for (E value : values) {
+            final String text = Stream.of(value.getApiString(), value.name().toLowerCase(Locale.ROOT), value.getUiString()).filter(t -> value == fromText.apply(t)).findFirst().orElse(value.getApiString());
+            TEXTS.put(value, text);
+        }
+    }
+
+    /** Pkg.toString() writes names like RED_HAT which only match a synonym in lower case */
+    private static Distribution getDistribution(final String name) {
+        final Distribution distribution = DiscoClient.getDistributionFromText(name);
+        return null == distribution ? DiscoClient.getDistributionFromText(name.toLowerCase(Locale.ROOT)) : distribution;
+    }
+
+    private static String intern(final String value) { return null == value ? null : value.intern(); }
+
+    private static String getString(final JsonObject json, final String field) {
+        final JsonElement element = json.get(field);
+        return null == element || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static boolean getBoolean(final JsonObject json, final String field) {
+        final JsonElement element = json.get(field);
+        return null != element && !element.isJsonNull() && element.getAsBoolean();
+    }
+
+    // 0 stands for null, so enums with up to 127 constants fit, names like ALPINE_LINUX are only found in lower case
+    private static byte ordinal(final JsonObject json, final String field, final Function<String, ? extends Enum<?>> fromText) {
+        final String text = getString(json, field);
+        if (null == text) { return 0; }
+        Enum<?> value = fromText.apply(text);
+        if (NOT_FOUND.equals(value.name())) { value = fromText.apply(text.toLowerCase(Locale.ROOT)); }
+        return (byte) (value.ordinal() + 1);
+    }
+
+    private static <T> T value(final T[] values, final byte ordinal) { return 0 == ordinal ? null : values[ordinal - 1]; }
+
+    private static <T> T[] copy(final T[] values, final int[] rows, final T[] target) {
+        for (int i = 0 ; i < rows.length ; i++) { target[i] = values[rows[i]]; }
+        return target;
+    }
+
+    private static byte[] copy(final byte[] values, final int[] rows) {
+        final byte[] target = new byte[rows.length];
+        for (int i = 0 ; i < rows.length ; i++) { target[i] = values[rows[i]]; }
+        return target;
+    }
+
+
+    private final class Rows extends AbstractList<Pkg> implements RandomAccess {
+        private final int[] rows;
+
+
+        Rows(final int[] rows) { this.rows = rows; }
+
+
+        @Override public Pkg get(final int index) { return CompactCatalog.this.get(rows[index]); }
+
+        @Override public int size() { return rows.length; }
+    }
+}
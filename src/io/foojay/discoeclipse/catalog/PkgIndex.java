@@ -0,0 +1,151 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.LibCType;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.Pkg;
+
+
+/**
+ * Faceted index over a list of packages. Every facet value maps to a bitset of the rows
+ * that carry it, so a selection is the intersection of a few bitsets. The selection
+ * bitset is reused between calls which means an index must only be used by one thread.
+ * The index reads the columns of a compact catalog, packages are only created for the
+ * rows that are returned.
+ */
+public class PkgIndex {
+    private final CompactCatalog                   catalog;
+    private final BitSet                           all;
+    private final BitSet                           javafxBundled;
+    private final BitSet                           javafxNotBundled;
+    private final Map<String, BitSet>              distributions;
+    private final Map<OperatingSystem, BitSet>     operatingSystems;
+    private final Map<LibCType, BitSet>            libcTypes;
+    private final Map<Architecture, BitSet>        architectures;
+    private final Map<ArchiveType, BitSet>         archiveTypes;
+    private final BitSet                           selection;
+
+
+    public PkgIndex(final Collection<Pkg> pkgs) {
+        this(CompactCatalog.copyOf(pkgs));
+    }
+
+    public PkgIndex(final CompactCatalog catalog) {
+        final int size = catalog.size();
+        this.catalog          = catalog;
+        this.all              = new BitSet(size);
+        this.javafxBundled    = new BitSet(size);
+        this.javafxNotBundled = new BitSet(size);
+        this.distributions    = new HashMap<>();
+        this.operatingSystems = new EnumMap<>(OperatingSystem.class);
+        this.libcTypes        = new EnumMap<>(LibCType.class);
+        this.architectures    = new EnumMap<>(Architecture.class);
+        this.archiveTypes     = new EnumMap<>(ArchiveType.class);
+        this.selection        = new BitSet(size);
+
+        all.set(0, size);
+        for (int row = 0 ; row < size ; row++) {
+            (catalog.isJavafxBundled(row) ? javafxBundled : javafxNotBundled).set(row);
+            post(distributions, catalog.getDistributionName(row), row);
+            post(operatingSystems, catalog.getOperatingSystem(row), row);
+            post(libcTypes, catalog.getLibCType(row), row);
+            post(architectures, catalog.getArchitecture(row), row);
+            post(archiveTypes, catalog.getArchiveType(row), row);
+        }
+    }
+
+
+    public CompactCatalog getCatalog() { return catalog; }
+
+    public int size() { return catalog.size(); }
+
+    /** Creates the package of the given row */
+    public Pkg get(final int row) { return catalog.get(row); }
+
+    /** Packed version of the given row, see VersionKey.pack() */
+    public long getVersion(final int row) { return catalog.getVersion(row); }
+
+    /** Packed qualifier of the given row, see VersionKey.qualify() */
+    public long getQualifier(final int row) { return catalog.getQualifier(row); }
+
+    /**
+     * Returns the rows matching all given facet values where null stands for any value.
+     * The returned bitset will be overwritten by the next call to select().
+     */
+    public BitSet select(final Boolean javafxBundled, final Distribution distribution, final OperatingSystem operatingSystem, final LibCType libcType, final Architecture architecture, final ArchiveType archiveType) {
+        selection.clear();
+        selection.or(all);
+        if (null != javafxBundled)   { selection.and(javafxBundled ? this.javafxBundled : javafxNotBundled); }
+        if (null != distribution)    { and(distributions.get(distribution.getApiString())); }
+        if (null != operatingSystem) { and(operatingSystems.get(operatingSystem)); }
+        if (null != libcType)        { and(libcTypes.get(libcType)); }
+        if (null != architecture)    { and(architectures.get(architecture)); }
+        if (null != archiveType)     { and(archiveTypes.get(archiveType)); }
+        return selection;
+    }
+
+    public Set<OperatingSystem> getOperatingSystems(final BitSet rows) { return values(operatingSystems, rows, EnumSet.noneOf(OperatingSystem.class)); }
+
+    public Set<LibCType> getLibCTypes(final BitSet rows) { return values(libcTypes, rows, EnumSet.noneOf(LibCType.class)); }
+
+    public Set<Architecture> getArchitectures(final BitSet rows) { return values(architectures, rows, EnumSet.noneOf(Architecture.class)); }
+
+    public Set<ArchiveType> getArchiveTypes(final BitSet rows) { return values(archiveTypes, rows, EnumSet.noneOf(ArchiveType.class)); }
+
+    /**
+     * Returns the distributions of all rows with the given javafx flag and version in the
+     * order of their first row. Does not touch the selection, so it may run in parallel.
+     */
+    public List<Distribution> getDistributions(final boolean javafxBundled, final VersionKey version) {
+        final BitSet             rows   = javafxBundled ? this.javafxBundled : javafxNotBundled;
+        final Set<String>        seen   = new HashSet<>();
+        final List<Distribution> result = new ArrayList<>();
+        for (int row = rows.nextSetBit(0) ; row >= 0 ; row = rows.nextSetBit(row + 1)) {
+            if (!version.matches(catalog.getVersion(row), catalog.getQualifier(row))) { continue; }
+            final String name = catalog.getDistributionName(row);
+            if (null == name || seen.contains(name)) { continue; }
+            final Distribution distribution = catalog.getDistribution(row);
+            if (null != distribution && seen.add(name)) { result.add(distribution); }
+        }
+        return result;
+    }
+
+    public Pkg getFirst(final BitSet rows) {
+        int row = rows.nextSetBit(0);
+        return row < 0 ? null : catalog.get(row);
+    }
+
+
+    private void and(final BitSet postings) {
+        if (null == postings) {
+            selection.clear();
+        } else {
+            selection.and(postings);
+        }
+    }
+
+    private static <T> void post(final Map<T, BitSet> facet, final T value, final int row) {
+        if (null == value) { return; }
+        facet.computeIfAbsent(value, k -> new BitSet()).set(row);
+    }
+
+    private static <T> Set<T> values(final Map<T, BitSet> facet, final BitSet rows, final Set<T> target) {
+        facet.forEach((value, postings) -> {
+            if (postings.intersects(rows)) { target.add(value); }
+        });
+        return target;
+    }
+}
@@ -0,0 +1,349 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.LibCType;
+import io.foojay.api.discoclient.pkg.MajorVersion;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.PackageType;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.catalog.CatalogCache.Codec;
+
+
+/**
+ * Token index over all packages of the catalog cache for searching as you type. Every
+ * package is split into lower case tokens like its versions, distribution, platform,
+ * archive type and the parts of its file name. A query matches the packages that have a
+ * token starting with each of its words, packages matching all words exactly rank first,
+ * newer versions before older ones.
+ * The index is filled in the background with the packages of all maintained versions and
+ * grows with every package list the catalog cache loads. Packages are added once by id,
+ * the index keeps its own columns of them, packages the API drops stay until the
+ * workbench restarts.
+ */
+public class PkgSearchIndex {
+    public  static final int                 MAX_RESULTS   = 200;
+    private static final String              PKGS_PREFIX   = "pkgs-";
+    private static final long                POLL_INTERVAL = 250;
+    private static final String              SEPARATORS    = "[\\s_\\-+.()/]+";
+    private static final Map<String, String> ALIASES       = Map.of("aarch64", "arm64", "x64", "amd64 x86_64", "macos", "osx darwin", "windows", "win");
+    private static       PkgSearchIndex      defaultIndex;
+
+    private final NavigableMap<String, Postings> postings;
+    private final Set<String>                    ids;
+    private final List<Runnable>                 listeners;
+    private CompactCatalog[]                     catalogs;
+    private int[]                                rows;
+    private int[]                                order;
+    private int                                  size;
+
+
+    public PkgSearchIndex() {
+        this.postings  = new TreeMap<>();
+        this.ids       = new HashSet<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.catalogs  = new CompactCatalog[0];
+        this.rows      = new int[0];
+        this.order     = new int[0];
+        this.size      = 0;
+    }
+
+
+    /** Returns the index of the default catalog, it is filled in the background on first use */
+    public static synchronized PkgSearchIndex getDefault() {
+        if (null == defaultIndex) {
+            final Catalog        catalog = Catalog.getDefault();
+            final CatalogCache   cache   = catalog.getCatalogCache();
+            final PkgSearchIndex index   = new PkgSearchIndex();
+            cache.addStoreListener(key -> {
+                if (!key.startsWith(PKGS_PREFIX)) { return; }
+                // not on the thread that completes the request of the dialog
+                try {
+                    DiscoExecutors.get(Workload.CATALOG).execute(() -> index.add(cache.getCached(key, Codec.PKG)));
+                } catch (RejectedExecutionException e) {
+                    // the loader or a later store adds the packages
+                }
+            });
+            new Loader(catalog, index).schedule();
+            defaultIndex = index;
+        }
+        return defaultIndex;
+    }
+
+
+    /** Adds the packages that are not in the index yet */
+    public void add(final List<Pkg> pkgs) {
+        if (null == pkgs || pkgs.isEmpty()) { return; }
+        final CompactCatalog source = CompactCatalog.copyOf(pkgs);
+        synchronized (this) {
+            final int before = size;
+            final int[] newRows = IntStream.range(0, source.size()).filter(row -> null != source.getId(row) && ids.add(source.getId(row))).toArray();
+            if (0 == newRows.length) { return; }
+            // a copy of the new rows, the list of the cache is not kept alive by the index
+            final CompactCatalog catalog = source.copyRows(newRows);
+            ensureCapacity(size + catalog.size());
+            for (int row = 0 ; row < catalog.size() ; row++) {
+                catalogs[size] = catalog;
+                rows[size]     = row;
+                for (String token : tokenize(catalog, row)) { postings.computeIfAbsent(token, t -> new Postings()).add(size); }
+                size++;
+            }
+            // only the new packages are sorted, then merged into the ranking
+            final int[] added  = IntStream.range(before, size).boxed().sorted(this::compare).mapToInt(Integer::intValue).toArray();
+            final int[] merged = new int[size];
+            int i = 0, j = 0, k = 0;
+            while (i < order.length && j < added.length) { merged[k++] = compare(order[i], added[j]) <= 0 ? order[i++] : added[j++]; }
+            while (i < order.length) { merged[k++] = order[i++]; }
+            while (j < added.length) { merged[k++] = added[j++]; }
+            order = merged;
+        }
+        listeners.forEach(Runnable::run);
+    }
+
+    /** Returns the best matches for the words of the query, an empty query matches everything */
+    public synchronized List<Hit> search(final String query) {
+        final String[] words   = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        final BitSet   matches = new BitSet(size);
+        final BitSet   exact   = new BitSet(size);
+        matches.set(0, size);
+        exact.set(0, size);
+        for (String word : words) {
+            if (word.isEmpty()) { continue; }
+            matches.and(find(word, true));
+            exact.and(find(word, false));
+        }
+        exact.and(matches);
+
+        final List<Hit> hits = new ArrayList<>();
+        collect(exact, hits);
+        matches.andNot(exact);
+        collect(matches, hits);
+        return hits;
+    }
+
+    /** Number of indexed packages */
+    public synchronized int size() { return size; }
+
+    /** The listener is called from the thread that added packages */
+    public void addChangeListener(final Runnable listener) { listeners.add(listener); }
+    public void removeChangeListener(final Runnable listener) { listeners.remove(listener); }
+
+
+    private void collect(final BitSet docs, final List<Hit> hits) {
+        for (int i = 0 ; i < order.length && hits.size() < MAX_RESULTS ; i++) {
+            final int doc = order[i];
+            if (docs.get(doc)) { hits.add(new Hit(catalogs[doc], rows[doc])); }
+        }
+    }
+
+    /**
+     * Returns the documents with a token that equals or, with prefix, starts with the word.
+     * Words are split like the indexed text, so documents that match all parts of a word
+     * like linux-x64 are found as well.
+     */
+    private BitSet find(final String word, final boolean prefix) {
+        final BitSet docs  = lookup(word, prefix);
+        BitSet       parts = null;
+        for (String part : word.split(SEPARATORS)) {
+            if (part.isEmpty()) { continue; }
+            if (part.equals(word)) { return docs; }
+            final BitSet partDocs = lookup(part, prefix);
+            if (null == parts) {
+                parts = partDocs;
+            } else {
+                parts.and(partDocs);
+            }
+        }
+        if (null != parts) { docs.or(parts); }
+        return docs;
+    }
+
+    private BitSet lookup(final String token, final boolean prefix) {
+        final BitSet docs = new BitSet(size);
+        if (prefix) {
+            postings.subMap(token, true, token + Character.MAX_VALUE, true).values().forEach(p -> p.setAll(docs));
+        } else {
+            final Postings equal = postings.get(token);
+            if (null != equal) { equal.setAll(docs); }
+        }
+        return docs;
+    }
+
+    /** Newer versions first, general availability before early access, then by file name */
+    private int compare(final int doc1, final int doc2) {
+        final CompactCatalog catalog1 = catalogs[doc1];
+        final CompactCatalog catalog2 = catalogs[doc2];
+        int result = Long.compare(catalog2.getVersion(rows[doc2]), catalog1.getVersion(rows[doc1]));
+        if (0 == result) { result = Long.compare(catalog2.getQualifier(rows[doc2]), catalog1.getQualifier(rows[doc1])); }
+        if (0 == result) { result = Comparator.nullsLast(Comparator.<String>naturalOrder()).compare(catalog1.getFileName(rows[doc1]), catalog2.getFileName(rows[doc2])); }
+        return result;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= rows.length) { return; }
+        final int length = Math.max(capacity, rows.length * 2 + 64);
+        catalogs = Arrays.copyOf(catalogs, length);
+        rows     = Arrays.copyOf(rows, length);
+    }
+
+    private static Set<String> tokenize(final CompactCatalog catalog, final int row) {
+        final Set<String> tokens  = new HashSet<>();
+        final long        numbers = catalog.getVersion(row);
+        if (0 != numbers) {
+            tokens.add(Integer.toString(VersionKey.getFeature(numbers)));
+            tokens.add(VersionKey.format(numbers));
+        }
+        tokens.add(VersionKey.isEarlyAccess(catalog.getQualifier(row)) ? "ea" : "ga");
+        if (catalog.isJavafxBundled(row)) { tokens.addAll(List.of("fx", "javafx")); }
+        split(catalog.getDistributionName(row), tokens);
+
+        final OperatingSystem operatingSystem = catalog.getOperatingSystem(row);
+        final Architecture    architecture    = catalog.getArchitecture(row);
+        final LibCType        libcType        = catalog.getLibCType(row);
+        final ArchiveType     archiveType     = catalog.getArchiveType(row);
+        final PackageType     packageType     = catalog.getPackageType(row);
+        if (null != operatingSystem) { add(operatingSystem.getApiString(), operatingSystem.getUiString(), tokens); }
+        if (null != architecture)    { add(architecture.getApiString(), architecture.getUiString(), tokens); }
+        if (null != libcType)        { add(libcType.getApiString(), libcType.getUiString(), tokens); }
+        if (null != archiveType)     { add(archiveType.getApiString(), archiveType.getUiString(), tokens); }
+        if (null != packageType)     { add(packageType.getApiString(), packageType.getUiString(), tokens); }
+
+        final String fileName = catalog.getFileName(row);
+        if (null != fileName) { split(fileName, tokens); }
+        return tokens;
+    }
+
+    private static void add(final String apiString, final String uiString, final Set<String> tokens) {
+        final String api = apiString.toLowerCase(Locale.ROOT);
+        tokens.add(api);
+        split(api, tokens);
+        split(uiString, tokens);
+        final String aliases = ALIASES.get(api);
+        if (null != aliases) {
+            tokens.addAll(List.of(aliases.split(" ")));
+            split(aliases, tokens);
+        }
+    }
+
+    private static void split(final String text, final Set<String> tokens) {
+        if (null == text) { return; }
+        for (String token : text.toLowerCase(Locale.ROOT).split(SEPARATORS)) {
+            if (!token.isEmpty()) { tokens.add(token); }
+        }
+    }
+
+
+    /** Ascending document numbers of one token, far smaller than a bitset for rare tokens */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int   size;
+
+
+        void add(final int doc) {
+            if (size == docs.length) { docs = Arrays.copyOf(docs, size * 2); }
+            docs[size++] = doc;
+        }
+
+        void setAll(final BitSet target) {
+            for (int i = 0 ; i < size ; i++) { target.set(docs[i]); }
+        }
+    }
+
+
+    /** A search result, the package is only created when asked for */
+    public static final class Hit {
+        private final CompactCatalog catalog;
+        private final int            row;
+
+
+        Hit(final CompactCatalog catalog, final int row) {
+            this.catalog = catalog;
+            this.row     = row;
+        }
+
+
+        public String getFileName() { return catalog.getFileName(row); }
+
+        public String getDistributionName() { return catalog.getDistributionName(row); }
+
+        public String getVersion() { return VersionKey.format(catalog.getVersion(row)) + (VersionKey.isEarlyAccess(catalog.getQualifier(row)) ? "-ea" : ""); }
+
+        public ArchiveType getArchiveType() { return catalog.getArchiveType(row); }
+
+        public Pkg getPkg() { return catalog.get(row); }
+    }
+
+
+    /** Loads the packages of all maintained versions through the catalog cache into the index */
+    private static class Loader extends Job {
+        private final Catalog        catalog;
+        private final PkgSearchIndex index;
+
+
+        Loader(final Catalog catalog, final PkgSearchIndex index) {
+            super("Indexing JDK catalog");
+            this.catalog = catalog;
+            this.index   = index;
+            setSystem(true);
+        }
+
+
+        @Override protected IStatus run(final IProgressMonitor monitor) {
+            try {
+                for (MajorVersion majorVersion : await(catalog.getMaintainedMajorVersions(null), monitor)) {
+                    index.add(await(catalog.getPkgs(null, majorVersion.getAsInt(), Boolean.TRUE.equals(majorVersion.isEarlyAccessOnly())), monitor));
+                    index.add(await(catalog.getJavafxPkgs(majorVersion), monitor));
+                }
+            } catch (InterruptedException e) {
+                return Status.CANCEL_STATUS;
+            } catch (ExecutionException e) {
+                // whatever the cache loads later is still added
+                Platform.getLog(PkgSearchIndex.class).log(new Status(IStatus.INFO, Constants.PLUGIN_ID, "Could not load the catalog for the quick pick", e.getCause()));
+            }
+            return Status.OK_STATUS;
+        }
+
+
+        private static <T> T await(final CompletableFuture<T> future, final IProgressMonitor monitor) throws InterruptedException, ExecutionException {
+            while (true) {
+                if (monitor.isCanceled()) {
+                    future.cancel(true);
+                    throw new InterruptedException();
+                }
+                try {
+                    return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // check for cancellation again
+                }
+            }
+        }
+    }
+}
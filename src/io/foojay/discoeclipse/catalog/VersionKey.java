@@ -0,0 +1,116 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import io.foojay.api.discoclient.pkg.ReleaseStatus;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.pkg.VersionNumber;
+
+
+/**
+ * Java version reduced to what the version combo box distinguishes and packed into two
+ * longs, so equality, grouping and sorting are integer comparisons instead of formatting
+ * every version as a string. Feature, interim, update and patch take 16 bits each of the
+ * numbers, the qualifier holds the fifth and sixth component, the release status and the
+ * build number. Keys without build match any build and release status of the same version,
+ * just like the reduced version strings which drop the build and the early access suffix.
+ */
+public final class VersionKey implements Comparable<VersionKey> {
+    private static final int  COMPONENT_BITS = 16;
+    private static final int  COMPONENT_MAX  = (1 << COMPONENT_BITS) - 1;
+    private static final int  EXTRA_BITS     = 15;
+    private static final int  EXTRA_MAX      = (1 << EXTRA_BITS) - 1;
+    private static final long GA             = 1L << 32;
+    private static final long BUILD_MASK     = GA - 1;
+    private static final long VERSION_MASK   = ~(GA | BUILD_MASK);
+
+    private final long numbers;
+    private final long qualifier;
+    private final long mask;
+
+
+    private VersionKey(final long numbers, final long qualifier, final long mask) {
+        this.numbers   = numbers;
+        this.qualifier = qualifier & mask;
+        this.mask      = mask;
+    }
+
+
+    public static VersionKey of(final SemVer semVer, final boolean includeBuild) {
+        return new VersionKey(pack(semVer.getVersionNumber()), qualify(semVer), includeBuild ? -1L : VERSION_MASK);
+    }
+
+    /** Packs feature, interim, update and patch, components that do not fit are saturated */
+    public static long pack(final VersionNumber versionNumber) {
+        return (long) component(versionNumber.getFeature()) << 3 * COMPONENT_BITS
+             | (long) component(versionNumber.getInterim()) << 2 * COMPONENT_BITS
+             | (long) component(versionNumber.getUpdate())  << COMPONENT_BITS
+             | component(versionNumber.getPatch());
+    }
+
+    /** Early access builds sort before the general availability release of the same version */
+    public static long qualify(final SemVer semVer) {
+        final VersionNumber versionNumber = semVer.getVersionNumber();
+        final long          extra         = (long) extra(versionNumber.getFifth()) << 48 | (long) extra(versionNumber.getSixth()) << 33;
+        final long          build         = versionNumber.getBuild().orElse(0) & BUILD_MASK;
+        return ReleaseStatus.EA == semVer.getReleaseStatus() ? extra | build : extra | GA | build;
+    }
+
+
+    /** Formats packed numbers as feature.interim.update, the patch is only added if set */
+    public static String format(final long numbers) {
+        final int    patch = (int) numbers & COMPONENT_MAX;
+        final String text  = ((numbers >>> 3 * COMPONENT_BITS) & COMPONENT_MAX) + "." + ((numbers >>> 2 * COMPONENT_BITS) & COMPONENT_MAX) + "." + ((numbers >>> COMPONENT_BITS) & COMPONENT_MAX);
+        return 0 == patch ? text : text + "." + patch;
+    }
+
+    public static int getFeature(final long numbers) { return (int) (numbers >>> 3 * COMPONENT_BITS) & COMPONENT_MAX; }
+
+    public static boolean isEarlyAccess(final long qualifier) { return (qualifier & GA) == 0; }
+
+
+    public long getNumbers() { return numbers; }
+
+    public long getQualifier() { return qualifier; }
+
+    public boolean includesBuild() { return VERSION_MASK != mask; }
+
+    /** Compares with the packed numbers and qualifier of a package without creating a key for it */
+    public boolean matches(final long numbers, final long qualifier) {
+        return this.numbers == numbers && this.qualifier == (qualifier & mask);
+    }
+
+    /** Returns the version this key stands for in the form SemVer.fromText() creates for the reduced version string, which has no fifth or sixth component */
+    public SemVer toSemVer() {
+        final boolean       earlyAccess   = includesBuild() && (qualifier & GA) == 0;
+        final int           build         = includesBuild() ? (int) (qualifier & BUILD_MASK) : 0;
+        final VersionNumber versionNumber = new VersionNumber(OptionalInt.of(component(3)), OptionalInt.of(component(2)), OptionalInt.of(component(1)), OptionalInt.of(component(0)),
+                                                              OptionalInt.empty(), OptionalInt.empty(), 0 == build ? OptionalInt.empty() : OptionalInt.of(build),
+                                                              earlyAccess ? Optional.of(ReleaseStatus.EA) : Optional.empty());
+        return new SemVer(versionNumber, earlyAccess ? ReleaseStatus.EA : ReleaseStatus.GA);
+    }
+
+    @Override public int compareTo(final VersionKey other) {
+        final int result = Long.compare(numbers, other.numbers);
+        return 0 != result ? result : Long.compare(qualifier, other.qualifier);
+    }
+
+    @Override public boolean equals(final Object o) {
+        if (this == o) { return true; }
+        if (!(o instanceof VersionKey)) { return false; }
+        final VersionKey other = (VersionKey) o;
+        return numbers == other.numbers && qualifier == other.qualifier && mask == other.mask;
+    }
+
+    @Override public int hashCode() { return Long.hashCode(numbers) * 31 + Long.hashCode(qualifier); }
+
+    @Override public String toString() { return toSemVer().toString(true); }
+
+
+    private int component(final int index) { return (int) (numbers >>> index * COMPONENT_BITS) & COMPONENT_MAX; }
+
+    private static int component(final OptionalInt value) { return Math.min(COMPONENT_MAX, Math.max(0, value.orElse(0))); }
+
+    private static int extra(final OptionalInt value) { return Math.min(EXTRA_MAX, Math.max(0, value.orElse(0))); }
+}
@@ -0,0 +1,552 @@
+package io.foojay.discoeclipse.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+import com.google.gson.JsonObject;
+
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.HashAlgorithm;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Activator;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.catalog.CatalogCache;
+import io.foojay.discoeclipse.download.Checksum;
+import io.foojay.discoeclipse.download.ChecksumMismatchException;
+import io.foojay.discoeclipse.download.DownloadEngine;
+import io.foojay.discoeclipse.download.DownloadJob;
+import io.foojay.discoeclipse.download.DownloadListener;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.extract.ArchiveExtractor;
+import io.foojay.discoeclipse.jre.JreRegistrar;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.provision.Provisioner;
+import io.foojay.discoeclipse.provision.ProvisioningManifest;
+import io.foojay.discoeclipse.provision.ProvisioningManifest.Slot;
+import io.foojay.discoeclipse.resolver.JdkConstraints;
+
+
+/**
+ * Headless entry point for scripted provisioning, e.g. when CI images are built:
+ * <pre>
+ * eclipsec -nosplash -application DiscoEclipse.cli &lt;command&gt; [options] [arguments]
+ *
+ *   resolve  &lt;jdk&gt;...
+ *   download [--target &lt;dir&gt;] [--extract] [--parallel &lt;n&gt;] [--manifest &lt;file&gt;] &lt;jdk&gt;...
+ *   verify   &lt;archive&gt; &lt;checksum|jdk&gt; [&lt;archive&gt; &lt;checksum|jdk&gt;]...
+ *   extract  [--target &lt;dir&gt;] &lt;archive&gt;...
+ *
+ *   options of all commands: --offline, --metrics &lt;file&gt;
+ * </pre>
+ * A JDK is written like "21:distribution=temurin:os=linux:arch=x64" with the fields of a
+ * provisioning manifest entry, a checksum like "sha256:1f2e...". The commands use the
+ * catalog cache, archive store, mirror and download manager of the plugin, so they share
+ * their content and preferences with the IDE of the same workspace. Results and timings
+ * are printed to stdout as one JSON object per line, messages go to stderr and the exit
+ * code is one of the EXIT constants.
+ */
+public class DiscoApplication implements IApplication {
+    public  static final Integer EXIT_FAILED                = 1;
+    public  static final Integer EXIT_USAGE                 = 2;
+    public  static final Integer EXIT_MISSING               = 3;
+    public  static final Integer EXIT_CHECKSUM_MISMATCH     = 4;
+    public  static final Integer EXIT_CANCELLED             = 130;
+    public  static final int     DEFAULT_PARALLEL_DOWNLOADS = 8;
+    private static final String  OPTION_TARGET              = "--target";
+    private static final String  OPTION_EXTRACT             = "--extract";
+    private static final String  OPTION_PARALLEL            = "--parallel";
+    private static final String  OPTION_MANIFEST            = "--manifest";
+    private static final String  OPTION_OFFLINE             = "--offline";
+    private static final String  OPTION_METRICS             = "--metrics";
+    private static final String  STATUS_OK                  = "ok";
+    private static final String  STATUS_FAILED              = "failed";
+    private static final String  STATUS_MISSING             = "missing";
+    private static final String  STATUS_MISMATCH            = "mismatch";
+    private static final String  STATUS_CANCELLED           = "cancelled";
+    private static final String  USAGE                      = "Usage: -application DiscoEclipse.cli <command> [options] [arguments]\n" +
+                                                              "  resolve  <jdk>...\n" +
+                                                              "  download [--target <dir>] [--extract] [--parallel <n>] [--manifest <file>] <jdk>...\n" +
+                                                              "  verify   <archive> <checksum|jdk> [<archive> <checksum|jdk>]...\n" +
+                                                              "  extract  [--target <dir>] <archive>...\n" +
+                                                              "Options of all commands: --offline, --metrics <file>\n" +
+                                                              "A JDK is written like 21:distribution=temurin:os=linux:arch=x64, a checksum like sha256:1f2e...";
+
+    private final IProgressMonitor monitor;
+    private final PrintStream      out;
+    private final PrintStream      err;
+
+
+    public DiscoApplication() {
+        this.monitor = new NullProgressMonitor();
+        this.out     = System.out;
+        this.err     = System.err;
+    }
+
+
+    @Override public Object start(final IApplicationContext context) throws Exception {
+        context.applicationRunning();
+        final Object arguments = context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+        return run(arguments instanceof String[] ? (String[]) arguments : new String[0]);
+    }
+
+    @Override public void stop() {
+        monitor.setCanceled(true);
+        DownloadManager.getDefault().cancelAll();
+    }
+
+
+    /** Runs the command of the given arguments and returns its exit code */
+    public Integer run(final String[] args) {
+        if (0 == args.length || "help".equals(args[0]) || "--help".equals(args[0])) {
+            err.println(USAGE);
+            return 0 == args.length ? EXIT_USAGE : EXIT_OK;
+        }
+        final long start = System.nanoTime();
+        try {
+            final Arguments arguments;
+            final Integer   exitCode;
+            switch (args[0]) {
+                case "resolve" :
+                case "verify"  : arguments = new Arguments(args, Set.of(), Set.of()); break;
+                case "download": arguments = new Arguments(args, Set.of(OPTION_EXTRACT), Set.of(OPTION_TARGET, OPTION_PARALLEL, OPTION_MANIFEST)); break;
+                case "extract" : arguments = new Arguments(args, Set.of(), Set.of(OPTION_TARGET)); break;
+                default        : throw new UsageException("Unknown command " + args[0]);
+            }
+            if (arguments.has(OPTION_OFFLINE)) { CatalogCache.getDefault().setOffline(true); }
+            switch (args[0]) {
+                case "resolve" : exitCode = resolve(arguments);  break;
+                case "download": exitCode = download(arguments); break;
+                case "verify"  : exitCode = verify(arguments);   break;
+                default        : exitCode = extract(arguments);  break;
+            }
+            timing("total", start, -1, -1);
+            writeMetrics(arguments.get(OPTION_METRICS));
+            return exitCode;
+        } catch (UsageException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (InterruptedException e) {
+            err.println("Cancelled");
+            return EXIT_CANCELLED;
+        } catch (IOException | ExecutionException e) {
+            err.println(null == e.getCause() || e instanceof IOException ? e.getMessage() : e.getCause().getMessage());
+            return EXIT_FAILED;
+        }
+    }
+
+
+    /** Prints the best package of every JDK */
+    private Integer resolve(final Arguments arguments) throws UsageException, IOException, InterruptedException, ExecutionException {
+        final List<Slot> slots = parseJdks(arguments.getOperands());
+        if (slots.isEmpty()) { throw new UsageException("No JDK given"); }
+
+        final List<JdkConstraints> constraints = new ArrayList<>();
+        slots.forEach(slot -> constraints.addAll(slot.getAlternatives()));
+        final long                     start    = System.nanoTime();
+        final Map<JdkConstraints, Pkg> resolved = Provisioner.await(Activator.getResolver().resolveEach(constraints), monitor);
+        timing("resolve", start, slots.size(), -1);
+
+        boolean missing = false;
+        for (Slot slot : slots) {
+            final Pkg pkg = slot.getAlternatives().stream().map(resolved::get).filter(p -> null != p).findFirst().orElse(null);
+            final JsonObject json = record("resolve", slot.toString(), null == pkg ? STATUS_MISSING : STATUS_OK);
+            if (null != pkg) { addPkg(json, pkg); }
+            print(json);
+            missing |= null == pkg;
+        }
+        return missing ? EXIT_MISSING : EXIT_OK;
+    }
+
+    /** Resolves the JDKs of the arguments and the manifest in one batch and downloads their packages in parallel */
+    private Integer download(final Arguments arguments) throws UsageException, IOException, InterruptedException, ExecutionException {
+        final List<Slot> slots   = new ArrayList<>();
+        Path             target  = null;
+        boolean          extract = arguments.has(OPTION_EXTRACT);
+        if (arguments.has(OPTION_MANIFEST)) {
+            final ProvisioningManifest manifest = ProvisioningManifest.read(Path.of(arguments.get(OPTION_MANIFEST)));
+            slots.addAll(manifest.getSlots());
+            target   = manifest.getTarget();
+            extract |= manifest.isExtract();
+        }
+        slots.addAll(parseJdks(arguments.getOperands()));
+        if (slots.isEmpty()) { throw new UsageException("No JDK given"); }
+        if (arguments.has(OPTION_TARGET)) { target = Path.of(arguments.get(OPTION_TARGET)); }
+        target = (null == target ? Path.of("") : target).toAbsolutePath().normalize();
+        Files.createDirectories(target);
+
+        final MultiStatus     missing = new MultiStatus(Constants.PLUGIN_ID, 0, "No package available for some JDKs", null);
+        final long            start   = System.nanoTime();
+        final Collection<Pkg> pkgs    = Provisioner.resolve(new ProvisioningManifest(target, extract, slots), Activator.getResolver(), missing, monitor);
+        timing("resolve", start, slots.size(), -1);
+        for (IStatus status : missing.getChildren()) { print(record("resolve", status.getMessage(), STATUS_MISSING)); }
+
+        final DownloadManager manager = DownloadManager.getDefault();
+        manager.setMaxDownloads(arguments.getInt(OPTION_PARALLEL, DEFAULT_PARALLEL_DOWNLOADS));
+        final long           downloadStart = System.nanoTime();
+        final List<Download> downloads     = new ArrayList<>();
+        for (Pkg pkg : pkgs) { downloads.add(new Download(pkg, target, extract, manager)); }
+        try {
+            for (Download download : downloads) { download.job.join(0, monitor); }
+        } catch (OperationCanceledException e) {
+            // stop() cancelled the jobs, they are still reported
+            for (Download download : downloads) { download.job.join(); }
+        }
+        downloads.forEach(Download::report);
+        timing("download", downloadStart, downloads.size(), downloads.stream().mapToLong(download -> download.bytes.get()).sum());
+
+        if (downloads.stream().anyMatch(download -> IStatus.CANCEL == download.job.getResult().getSeverity())) { return EXIT_CANCELLED; }
+        if (downloads.stream().anyMatch(download -> download.job.getResult().getException() instanceof ChecksumMismatchException)) { return EXIT_CHECKSUM_MISMATCH; }
+        if (downloads.stream().anyMatch(download -> !download.job.getResult().isOK())) { return EXIT_FAILED; }
+        return missing.getChildren().length == 0 ? EXIT_OK : EXIT_MISSING;
+    }
+
+    /** Compares archives with a given checksum or the one the Disco API publishes for the package of a JDK */
+    private Integer verify(final Arguments arguments) throws UsageException, IOException, InterruptedException, ExecutionException {
+        final List<String> operands = arguments.getOperands();
+        if (operands.isEmpty() || operands.size() % 2 != 0) { throw new UsageException("Expected pairs of archive and checksum or JDK"); }
+
+        // the JDKs of all pairs are resolved in one batch
+        final Map<Path, Object>    expectations = new LinkedHashMap<>();
+        final List<JdkConstraints> constraints  = new ArrayList<>();
+        for (int i = 0 ; i < operands.size() ; i += 2) {
+            final Path     archive  = Path.of(operands.get(i));
+            final Checksum checksum = parseChecksum(operands.get(i + 1));
+            if (null == checksum) {
+                final List<Slot> slots = ProvisioningManifest.parse(operands.get(i + 1));
+                if (slots.size() != 1) { throw new UsageException(operands.get(i + 1) + " stands for " + slots.size() + " JDKs instead of one"); }
+                constraints.addAll(slots.get(0).getAlternatives());
+                expectations.put(archive, slots.get(0));
+            } else {
+                expectations.put(archive, checksum);
+            }
+        }
+        final long                     start    = System.nanoTime();
+        final Map<JdkConstraints, Pkg> resolved = constraints.isEmpty() ? Map.of() : Provisioner.await(Activator.getResolver().resolveEach(constraints), monitor);
+        if (!constraints.isEmpty()) { timing("resolve", start, constraints.size(), -1); }
+
+        // hashing is bound by the disk like extracting
+        final long                                verifyStart = System.nanoTime();
+        final ExecutorService                     executor    = DiscoExecutors.get(Workload.EXTRACT);
+        final List<CompletableFuture<JsonObject>> results     = new ArrayList<>();
+        long                                      bytes       = 0;
+        for (Map.Entry<Path, Object> entry : expectations.entrySet()) {
+            final Path archive = entry.getKey();
+            if (entry.getValue() instanceof Checksum) {
+                results.add(CompletableFuture.supplyAsync(() -> verify(archive, (Checksum) entry.getValue()), executor));
+            } else {
+                final Pkg pkg = ((Slot) entry.getValue()).getAlternatives().stream().map(resolved::get).filter(p -> null != p).findFirst().orElse(null);
+                results.add(null == pkg ? CompletableFuture.completedFuture(record("verify", archive.toString(), STATUS_MISSING))
+                                        : CompletableFuture.supplyAsync(() -> verify(archive, pkg), executor));
+            }
+            bytes += Files.isRegularFile(archive) ? Files.size(archive) : 0;
+        }
+
+        final Set<String> statuses = new HashSet<>();
+        for (CompletableFuture<JsonObject> result : results) {
+            final JsonObject json = Provisioner.await(result, monitor);
+            print(json);
+            statuses.add(json.get("status").getAsString());
+        }
+        timing("verify", verifyStart, results.size(), bytes);
+
+        if (statuses.contains(STATUS_FAILED))   { return EXIT_FAILED; }
+        if (statuses.contains(STATUS_MISMATCH)) { return EXIT_CHECKSUM_MISMATCH; }
+        return statuses.contains(STATUS_MISSING) ? EXIT_MISSING : EXIT_OK;
+    }
+
+    /** Extracts local archives in parallel and adds them to the Installed JREs like downloaded ones */
+    private Integer extract(final Arguments arguments) throws UsageException, IOException, InterruptedException, ExecutionException {
+        if (arguments.getOperands().isEmpty()) { throw new UsageException("No archive given"); }
+        final Path target = Path.of(arguments.has(OPTION_TARGET) ? arguments.get(OPTION_TARGET) : "").toAbsolutePath().normalize();
+        Files.createDirectories(target);
+
+        final long                                start    = System.nanoTime();
+        final ExecutorService                     executor = DiscoExecutors.get(Workload.EXTRACT);
+        final List<CompletableFuture<JsonObject>> results  = new ArrayList<>();
+        for (String operand : arguments.getOperands()) {
+            final Path archive = Path.of(operand);
+            results.add(CompletableFuture.supplyAsync(() -> extract(archive, target), executor));
+        }
+        boolean failed = false;
+        for (CompletableFuture<JsonObject> result : results) {
+            final JsonObject json = Provisioner.await(result, monitor);
+            print(json);
+            failed |= !STATUS_OK.equals(json.get("status").getAsString());
+        }
+        timing("extract", start, results.size(), -1);
+        return failed ? EXIT_FAILED : EXIT_OK;
+    }
+
+
+    private JsonObject verify(final Path archive, final Pkg pkg) {
+        if (!archive.getFileName().toString().equals(pkg.getFileName())) {
+            final JsonObject json = record("verify", archive.toString(), STATUS_FAILED);
+            json.addProperty("message", "The JDK resolves to " + pkg.getFileName());
+            return json;
+        }
+        try {
+            final Checksum checksum = Checksum.lookup(pkg.getEphemeralId(), DownloadEngine.getDefault().getTransport());
+            if (null == checksum) {
+                final JsonObject json = record("verify", archive.toString(), STATUS_MISSING);
+                json.addProperty("message", "No checksum published for " + pkg.getFileName());
+                return json;
+            }
+            return verify(archive, checksum);
+        } catch (IOException e) {
+            final JsonObject json = record("verify", archive.toString(), STATUS_FAILED);
+            json.addProperty("message", e.getMessage());
+            return json;
+        }
+    }
+
+    private JsonObject verify(final Path archive, final Checksum expected) {
+        final long start = System.nanoTime();
+        try {
+            final Checksum   actual = Checksum.of(archive, expected.getAlgorithm());
+            final JsonObject json   = record("verify", archive.toString(), expected.getValue().equals(actual.getValue()) ? STATUS_OK : STATUS_MISMATCH);
+            json.addProperty("expected", expected.toString());
+            json.addProperty("actual", actual.toString());
+            json.addProperty("millis", millis(start));
+            return json;
+        } catch (IOException e) {
+            final JsonObject json = record("verify", archive.toString(), STATUS_FAILED);
+            json.addProperty("message", "Could not read the archive: " + e);
+            return json;
+        }
+    }
+
+    private JsonObject extract(final Path archive, final Path target) {
+        final long        start       = System.nanoTime();
+        final ArchiveType archiveType = ArchiveType.getFromFileName(archive.getFileName().toString());
+        if (!ArchiveExtractor.isSupported(archiveType)) {
+            final JsonObject json = record("extract", archive.toString(), STATUS_FAILED);
+            json.addProperty("message", "Unsupported archive type");
+            return json;
+        }
+        try {
+            final Path       home = DownloadEngine.extract(archive, target, archiveType);
+            final JsonObject json = record("extract", archive.toString(), STATUS_OK);
+            json.addProperty("path", home.toString());
+            json.addProperty("millis", millis(start));
+            if (DownloadManager.getDefault().isRegisterJres() && JreRegistrar.isAvailable()) {
+                try {
+                    json.addProperty("jre", JreRegistrar.register(home));
+                } catch (IOException e) {
+                    err.println(e.getMessage());
+                }
+            }
+            return json;
+        } catch (IOException e) {
+            final JsonObject json = record("extract", archive.toString(), STATUS_FAILED);
+            json.addProperty("message", e.getMessage());
+            return json;
+        }
+    }
+
+    private static List<Slot> parseJdks(final List<String> specs) throws IOException {
+        final List<Slot> slots = new ArrayList<>();
+        for (String spec : specs) { slots.addAll(ProvisioningManifest.parse(spec)); }
+        return slots;
+    }
+
+    /** Returns the checksum written like sha256:1f2e... or null if the text is no checksum */
+    private static Checksum parseChecksum(final String text) {
+        final int separator = text.indexOf(':');
+        if (separator < 0) { return null; }
+        final HashAlgorithm algorithm = HashAlgorithm.fromText(text.substring(0, separator));
+        if (null == algorithm || HashAlgorithm.NOT_FOUND == algorithm || HashAlgorithm.NONE == algorithm) { return null; }
+        return new Checksum(algorithm, text.substring(separator + 1));
+    }
+
+    private static JsonObject record(final String type, final String subject, final String status) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("type", type);
+        json.addProperty("subject", subject);
+        json.addProperty("status", status);
+        return json;
+    }
+
+    private static void addPkg(final JsonObject json, final Pkg pkg) {
+        json.addProperty("id", pkg.getId());
+        json.addProperty("file", pkg.getFileName());
+        json.addProperty("distribution", pkg.getDistribution().getApiString());
+        json.addProperty("version", pkg.getJavaVersion().toString());
+        json.addProperty("os", pkg.getOperatingSystem().getApiString());
+        json.addProperty("arch", pkg.getArchitecture().getApiString());
+        json.addProperty("archive", pkg.getArchiveType().getApiString());
+    }
+
+    private static long millis(final long startNanos) { return (System.nanoTime() - startNanos) / 1_000_000; }
+
+    /** Prints the duration of a phase, count and bytes are left out if negative */
+    private void timing(final String phase, final long startNanos, final int count, final long bytes) {
+        final long       millis = millis(startNanos);
+        final JsonObject json   = new JsonObject();
+        json.addProperty("type", "timing");
+        json.addProperty("phase", phase);
+        json.addProperty("millis", millis);
+        if (count >= 0) { json.addProperty("count", count); }
+        if (bytes >= 0) {
+            json.addProperty("bytes", bytes);
+            json.addProperty("bytesPerSecond", 0 == millis ? 0 : bytes * 1000 / millis);
+        }
+        print(json);
+    }
+
+    private synchronized void print(final JsonObject json) {
+        out.println(json.toString());
+        out.flush();
+    }
+
+    private void writeMetrics(final String file) throws IOException {
+        if (null == file) { return; }
+        try (Writer writer = Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8)) {
+            Metrics.getDefault().dump(writer);
+        }
+    }
+
+
+    /** One queued download, reported as soon as its job is done */
+    private final class Download extends JobChangeAdapter {
+        private final Pkg           pkg;
+        private final long          queued;
+        private final AtomicLong    started;
+        private final AtomicLong    bytes;
+        private final AtomicBoolean reported;
+        private final DownloadJob   job;
+
+
+        Download(final Pkg pkg, final Path target, final boolean extract, final DownloadManager manager) {
+            this.pkg      = pkg;
+            this.queued   = System.nanoTime();
+            this.started  = new AtomicLong();
+            this.bytes    = new AtomicLong();
+            this.reported = new AtomicBoolean();
+            this.job      = manager.enqueue(pkg, target, extract, new DownloadListener() {
+                @Override public void started(final long contentLength) { started.compareAndSet(0, System.nanoTime()); }
+
+                @Override public void transferred(final long transferred) { bytes.addAndGet(transferred); }
+            });
+            job.addJobChangeListener(this);
+        }
+
+
+        @Override public void done(final IJobChangeEvent event) { report(); }
+
+        /** Jobs that finished before the listener was added are reported once all jobs are done */
+        void report() {
+            final IStatus result = job.getResult();
+            if (null == result || !reported.compareAndSet(false, true)) { return; }
+            final long       end  = System.nanoTime();
+            final String     status;
+            if (result.isOK()) {
+                status = STATUS_OK;
+            } else if (IStatus.CANCEL == result.getSeverity()) {
+                status = STATUS_CANCELLED;
+            } else {
+                status = result.getException() instanceof ChecksumMismatchException ? STATUS_MISMATCH : STATUS_FAILED;
+            }
+            final JsonObject json = record("download", pkg.getFileName(), status);
+            addPkg(json, pkg);
+            if (null != job.getDownloadedPath()) { json.addProperty("path", job.getDownloadedPath().toString()); }
+            if (!result.isOK()) { json.addProperty("message", result.getMessage()); }
+            json.addProperty("bytes", bytes.get());
+            json.addProperty("millis", (end - queued) / 1_000_000);
+            // the transfer time leaves out waiting for a download slot, stored archives are never transferred
+            if (0 != started.get()) {
+                final long transferMillis = (end - started.get()) / 1_000_000;
+                json.addProperty("transferMillis", transferMillis);
+                json.addProperty("bytesPerSecond", 0 == transferMillis ? 0 : bytes.get() * 1000 / transferMillis);
+            }
+            print(json);
+        }
+    }
+
+
+    /** Command line arguments after the command, options are only recognised in front of the operands */
+    private static final class Arguments {
+        private static final Set<String> COMMON_FLAGS   = Set.of(OPTION_OFFLINE);
+        private static final Set<String> COMMON_OPTIONS = Set.of(OPTION_METRICS);
+
+        private final Map<String, String> options;
+        private final List<String>        operands;
+
+
+        Arguments(final String[] args, final Set<String> flags, final Set<String> options) throws UsageException {
+            this.options  = new HashMap<>();
+            this.operands = new ArrayList<>();
+            int i = 1;
+            for ( ; i < args.length && args[i].startsWith("--") ; i++) {
+                final String option = args[i];
+                if (flags.contains(option) || COMMON_FLAGS.contains(option)) {
+                    this.options.put(option, Boolean.TRUE.toString());
+                } else if (options.contains(option) || COMMON_OPTIONS.contains(option)) {
+                    if (++i == args.length) { throw new UsageException("Missing value of " + option); }
+                    this.options.put(option, args[i]);
+                } else if ("--".equals(option)) {
+                    i++;
+                    break;
+                } else {
+                    throw new UsageException("Unknown option " + option + " of " + args[0]);
+                }
+            }
+            for ( ; i < args.length ; i++) { operands.add(args[i]); }
+        }
+
+
+        boolean has(final String option) { return options.containsKey(option); }
+
+        String get(final String option) { return options.get(option); }
+
+        int getInt(final String option, final int defaultValue) throws UsageException {
+            if (!has(option)) { return defaultValue; }
+            try {
+                final int value = Integer.parseInt(get(option));
+                if (value < 1) { throw new UsageException(option + " must be at least 1"); }
+                return value;
+            } catch (NumberFormatException e) {
+                throw new UsageException("Expected a number instead of " + get(option) + " for " + option);
+            }
+        }
+
+        List<String> getOperands() { return operands; }
+    }
+
+
+    private static class UsageException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+
+        UsageException(final String message) { super(message); }
+    }
+}
@@ -0,0 +1,282 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.pkg.HashAlgorithm;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Constants;
+
+
+/**
+ * Content addressed store of downloaded archives that is shared by all Eclipse instances
+ * of a user. Archives are keyed by their checksum and linked into the folders they are
+ * requested for. The index also knows the package ids an archive was stored for, so a
+ * stored package is found without asking the API for its checksum. Archives are verified
+ * against their size and checksum before they are handed out, damaged ones are evicted.
+ * The index is guarded by a file lock and the least recently used archives are evicted
+ * once the store grows beyond its size limit.
+ */
+public class ArchiveStore {
+    public  static final long   DEFAULT_MAX_SIZE = 10L * 1024 * 1024 * 1024;
+    private static final int    FORMAT_VERSION   = 1;
+    private static final String FIELD_FORMAT     = "format";
+    private static final String FIELD_ENTRIES    = "entries";
+    private static final String FIELD_KEY        = "key";
+    private static final String FIELD_FILE       = "file";
+    private static final String FIELD_SIZE       = "size";
+    private static final String FIELD_ACCESSED   = "accessed";
+    private static final String FIELD_IDS        = "ids";
+    private static final String FIELD_ALGORITHM  = "algorithm";
+    private static final String FIELD_CHECKSUM   = "checksum";
+    private static       ArchiveStore defaultStore;
+
+    private final Path directory;
+    private final Path objects;
+    private final Path indexFile;
+    private final Path lockFile;
+    private final long maxSize;
+
+
+    public ArchiveStore(final Path directory, final long maxSize) {
+        this.directory = directory;
+        this.objects   = directory.resolve("objects");
+        this.indexFile = directory.resolve("index.json");
+        this.lockFile  = directory.resolve(".lock");
+        this.maxSize   = maxSize;
+    }
+
+
+    public static synchronized ArchiveStore getDefault() {
+        if (null == defaultStore) {
+            long maxSize = InstanceScope.INSTANCE.getNode(Constants.PLUGIN_ID).getLong(Constants.PREFERENCE_ARCHIVE_STORE_SIZE, DEFAULT_MAX_SIZE);
+            defaultStore = new ArchiveStore(Path.of(System.getProperty("user.home"), ".foojay", "archives"), maxSize);
+        }
+        return defaultStore;
+    }
+
+
+    /**
+     * Returns the key of the given package, its checksum if known. Ephemeral ids change
+     * over time, so packages without checksum are keyed by their package id instead.
+     */
+    public static String getKey(final Pkg pkg, final Checksum checksum) {
+        String key = null == checksum ? "id-" + pkg.getId() : checksum.getAlgorithm().getApiString() + "-" + checksum.getValue();
+        return key.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    /** Returns the key of the archive that was stored for the package with the given id, null if there is none */
+    public String findKey(final String pkgId) throws IOException {
+        return locked(index -> index.entrySet().stream().filter(entry -> entry.getValue().ids.contains(pkgId)).map(Map.Entry::getKey).findFirst().orElse(null));
+    }
+
+    /** Returns the stored archive for the given key or null if it is not in the store or damaged */
+    public Path lookup(final String key) throws IOException {
+        final Entry entry = locked(index -> find(index, key));
+        if (null == entry) { return null; }
+        // hashing runs without the lock, other instances can use the store meanwhile
+        final Path file = objects.resolve(entry.file);
+        if (isIntact(file, entry)) { return file; }
+        Platform.getLog(ArchiveStore.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, "Evicting damaged archive " + file + " from the archive store", null));
+        locked(index -> {
+            final Entry current = index.get(key);
+            if (null != current && current.file.equals(entry.file)) { evict(index, key); }
+            return null;
+        });
+        return null;
+    }
+
+    /**
+     * Links the archive with the given key to the target and returns true, or returns false
+     * if the store does not contain it or it is damaged.
+     */
+    public boolean retrieve(final String key, final Path target) throws IOException {
+        final Path file = lookup(key);
+        if (null == file) { return false; }
+        return locked(index -> {
+            // another instance may have evicted it after it was verified
+            if (null == find(index, key)) { return false; }
+            link(file, target);
+            return true;
+        });
+    }
+
+    /**
+     * Adds the given file that was downloaded for the package with the given id to the store
+     * and evicts the least recently used archives if needed. The checksum may be null.
+     */
+    public void store(final String key, final String pkgId, final Checksum checksum, final Path file) throws IOException {
+        locked(index -> {
+            final String name   = key + "/" + file.getFileName();
+            final Path   stored = objects.resolve(name);
+            if (!Files.exists(stored)) {
+                Files.createDirectories(stored.getParent());
+                link(file, stored);
+            }
+            final Entry previous = index.get(key);
+            final Entry entry    = new Entry(name, Files.size(stored), System.currentTimeMillis(), null == previous ? new LinkedHashSet<>() : previous.ids,
+                                             null == checksum ? null : checksum.getAlgorithm(), null == checksum ? null : checksum.getValue());
+            if (null != pkgId) { entry.ids.add(pkgId); }
+            index.put(key, entry);
+
+            final List<String> candidates = new ArrayList<>(index.keySet());
+            candidates.sort(Comparator.comparingLong(candidate -> index.get(candidate).accessed));
+            long size = index.values().stream().mapToLong(e -> e.size).sum();
+            for (String candidate : candidates) {
+                if (size <= maxSize) { break; }
+                if (candidate.equals(key)) { continue; }
+                size -= evict(index, candidate).size;
+            }
+            return null;
+        });
+    }
+
+
+    private Entry find(final Map<String, Entry> index, final String key) {
+        final Entry entry = index.get(key);
+        if (null == entry) { return null; }
+        if (!Files.exists(objects.resolve(entry.file))) {
+            index.remove(key);
+            return null;
+        }
+        entry.accessed = System.currentTimeMillis();
+        return entry;
+    }
+
+    private Entry evict(final Map<String, Entry> index, final String key) throws IOException {
+        final Entry evicted  = index.remove(key);
+        final Path  obsolete = objects.resolve(evicted.file);
+        Files.deleteIfExists(obsolete);
+        if (Files.isDirectory(obsolete.getParent())) {
+            try (Stream<Path> rest = Files.list(obsolete.getParent())) {
+                if (rest.findAny().isEmpty()) { Files.delete(obsolete.getParent()); }
+            }
+        }
+        return evicted;
+    }
+
+    private static boolean isIntact(final Path file, final Entry entry) throws IOException {
+        if (Files.size(file) != entry.size) { return false; }
+        if (null == entry.algorithm) { return true; }
+        return Checksum.of(file, entry.algorithm).getValue().equals(entry.checksum);
+    }
+
+    /** Hard links are free and keep the stored archive if the target is deleted, copies are the fallback across file systems */
+    private static void link(final Path source, final Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Runs the given action on the index while holding the in-process and the file lock, the index is written afterwards */
+    private <T> T locked(final IndexAction<T> action) throws IOException {
+        synchronized (ArchiveStore.class) {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // the lock is released when the channel is closed
+                channel.lock();
+                final Map<String, Entry> index  = readIndex();
+                final T                  result = action.run(index);
+                writeIndex(index);
+                return result;
+            }
+        }
+    }
+
+    private Map<String, Entry> readIndex() {
+        final Map<String, Entry> index = new LinkedHashMap<>();
+        if (!Files.exists(indexFile)) { return index; }
+        try {
+            JsonObject json = JsonParser.parseString(Files.readString(indexFile, StandardCharsets.UTF_8)).getAsJsonObject();
+            if (!json.has(FIELD_FORMAT) || json.get(FIELD_FORMAT).getAsInt() != FORMAT_VERSION) { return index; }
+            for (JsonElement element : json.getAsJsonArray(FIELD_ENTRIES)) {
+                JsonObject  entry = element.getAsJsonObject();
+                Set<String> ids   = new LinkedHashSet<>();
+                if (entry.has(FIELD_IDS)) { entry.getAsJsonArray(FIELD_IDS).forEach(id -> ids.add(id.getAsString())); }
+                HashAlgorithm algorithm = entry.has(FIELD_ALGORITHM) ? HashAlgorithm.fromText(entry.get(FIELD_ALGORITHM).getAsString()) : null;
+                index.put(entry.get(FIELD_KEY).getAsString(), new Entry(entry.get(FIELD_FILE).getAsString(), entry.get(FIELD_SIZE).getAsLong(), entry.get(FIELD_ACCESSED).getAsLong(), ids,
+                                                                        HashAlgorithm.NOT_FOUND == algorithm ? null : algorithm, entry.has(FIELD_CHECKSUM) ? entry.get(FIELD_CHECKSUM).getAsString() : null));
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            Platform.getLog(ArchiveStore.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, "Ignoring unreadable archive store index", e));
+        }
+        return index;
+    }
+
+    private void writeIndex(final Map<String, Entry> index) throws IOException {
+        JsonArray entries = new JsonArray();
+        index.forEach((key, entry) -> {
+            JsonObject json = new JsonObject();
+            json.addProperty(FIELD_KEY, key);
+            json.addProperty(FIELD_FILE, entry.file);
+            json.addProperty(FIELD_SIZE, entry.size);
+            json.addProperty(FIELD_ACCESSED, entry.accessed);
+            JsonArray ids = new JsonArray();
+            entry.ids.forEach(ids::add);
+            json.add(FIELD_IDS, ids);
+            if (null != entry.algorithm) {
+                json.addProperty(FIELD_ALGORITHM, entry.algorithm.getApiString());
+                json.addProperty(FIELD_CHECKSUM, entry.checksum);
+            }
+            entries.add(json);
+        });
+        JsonObject json = new JsonObject();
+        json.addProperty(FIELD_FORMAT, FORMAT_VERSION);
+        json.add(FIELD_ENTRIES, entries);
+        Path temp = Files.createTempFile(directory, "index", ".tmp");
+        Files.writeString(temp, json.toString(), StandardCharsets.UTF_8);
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    @FunctionalInterface private interface IndexAction<T> {
+        T run(Map<String, Entry> index) throws IOException;
+    }
+
+
+    private static class Entry {
+        private final String        file;
+        private final long          size;
+        private final Set<String>   ids;
+        private final HashAlgorithm algorithm;
+        private final String        checksum;
+        private long                accessed;
+
+
+        Entry(final String file, final long size, final long accessed, final Set<String> ids, final HashAlgorithm algorithm, final String checksum) {
+            this.file      = file;
+            this.size      = size;
+            this.accessed  = accessed;
+            this.ids       = ids;
+            this.algorithm = algorithm;
+            this.checksum  = checksum;
+        }
+    }
+}
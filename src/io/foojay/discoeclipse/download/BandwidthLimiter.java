@@ -0,0 +1,47 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Global bandwidth cap shared by all transfers. Every caller reserves the time its bytes
+ * take at the configured rate in the order the calls arrive, so concurrent transfers get
+ * an equal share of the bandwidth. A rate of 0 or less means unlimited.
+ */
+public class BandwidthLimiter {
+    private static final long BURST = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private volatile long bytesPerSecond;
+    private long          nextFree;
+
+
+    public BandwidthLimiter(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.nextFree       = System.nanoTime();
+    }
+
+
+    public long getBytesPerSecond() { return bytesPerSecond; }
+    public void setBytesPerSecond(final long bytesPerSecond) { this.bytesPerSecond = bytesPerSecond; }
+
+    /** Blocks until the given number of bytes may be transferred */
+    public void acquire(final long bytes) throws InterruptedIOException {
+        final long rate = bytesPerSecond;
+        if (rate <= 0 || bytes <= 0) { return; }
+        final long wait;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            // unused bandwidth can only be saved up for a short burst
+            nextFree = Math.max(nextFree, now - BURST) + TimeUnit.SECONDS.toNanos(bytes) / rate;
+            wait     = nextFree - now;
+        }
+        if (wait <= 0) { return; }
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download cancelled");
+        }
+    }
+}
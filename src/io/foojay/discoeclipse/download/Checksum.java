@@ -0,0 +1,144 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.PropertyManager;
+import io.foojay.api.discoclient.pkg.HashAlgorithm;
+import io.foojay.api.discoclient.util.Constants;
+import io.foojay.discoeclipse.net.Transport;
+
+
+/**
+ * Expected checksum of a package as published by the Disco API.
+ */
+public class Checksum {
+    private static final String FIELD_RESULT        = "result";
+    private static final String FIELD_CHECKSUM      = "checksum";
+    private static final String FIELD_CHECKSUM_TYPE = "checksum_type";
+    private static final String FIELD_CHECKSUM_URI  = "checksum_uri";
+
+    private final HashAlgorithm algorithm;
+    private final String        value;
+
+
+    public Checksum(final HashAlgorithm algorithm, final String value) {
+        this.algorithm = algorithm;
+        this.value     = value.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * Looks up the checksum of the package with the given ephemeral id. If the API only
+     * knows the uri of a checksum file that file is fetched. Returns null if the package
+     * has no checksum with a supported algorithm.
+     */
+    public static Checksum lookup(final String ephemeralId, final Transport transport) throws IOException {
+        return lookup(URI.create(PropertyManager.INSTANCE.getString(Constants.PROPERTY_KEY_DISCO_URL) + Constants.EPHEMERAL_IDS_PATH + "/" + ephemeralId), transport);
+    }
+
+    /** Reads the checksum from a document in the format of the ephemeral ids endpoint, e.g. on a mirror */
+    public static Checksum lookup(final URI uri, final Transport transport) throws IOException {
+        final String text = transport.getText(uri);
+        if (null == text) { return null; }
+        try {
+            final JsonArray result = JsonParser.parseString(text).getAsJsonObject().getAsJsonArray(FIELD_RESULT);
+            if (null == result || result.size() == 0) { return null; }
+            final JsonObject    json      = result.get(0).getAsJsonObject();
+            final HashAlgorithm algorithm = json.has(FIELD_CHECKSUM_TYPE) ? HashAlgorithm.fromText(json.get(FIELD_CHECKSUM_TYPE).getAsString()) : HashAlgorithm.NOT_FOUND;
+            if (null == getJcaName(algorithm)) { return null; }
+            String value = json.has(FIELD_CHECKSUM) ? json.get(FIELD_CHECKSUM).getAsString() : "";
+            if (value.isBlank() && json.has(FIELD_CHECKSUM_URI) && !json.get(FIELD_CHECKSUM_URI).getAsString().isBlank()) {
+                value = fetch(URI.create(json.get(FIELD_CHECKSUM_URI).getAsString()), transport);
+            }
+            return value.isBlank() ? null : new Checksum(algorithm, value);
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("Unexpected package info at " + uri, e);
+        }
+    }
+
+
+    /** Computes the checksum of a local file */
+    public static Checksum of(final Path file, final HashAlgorithm algorithm) throws IOException {
+        final MessageDigest digest = new Checksum(algorithm, "").createDigest();
+        try (InputStream is = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[64 * 1024];
+            for (int read = is.read(buffer) ; read >= 0 ; read = is.read(buffer)) { digest.update(buffer, 0, read); }
+        }
+        return new Checksum(algorithm, toHex(digest.digest()));
+    }
+
+
+    public HashAlgorithm getAlgorithm() { return algorithm; }
+
+    public String getValue() { return value; }
+
+    public MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(getJcaName(algorithm));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean matches(final byte[] digest) { return value.equals(toHex(digest)); }
+
+    public static String toHex(final byte[] digest) {
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) { hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16)); }
+        return hex.toString();
+    }
+
+    /** Returns the checksum in the format of the ephemeral ids endpoint which lookup() reads */
+    public String toJson() {
+        final JsonObject json = new JsonObject();
+        json.addProperty(FIELD_CHECKSUM, value);
+        json.addProperty(FIELD_CHECKSUM_TYPE, algorithm.getApiString());
+        final JsonArray  result   = new JsonArray();
+        result.add(json);
+        final JsonObject document = new JsonObject();
+        document.add(FIELD_RESULT, result);
+        return document.toString();
+    }
+
+    @Override public String toString() { return algorithm.getUiString() + ":" + value; }
+
+
+    private static String getJcaName(final HashAlgorithm algorithm) {
+        if (null == algorithm) { return null; }
+        switch (algorithm) {
+            case MD5     : return "MD5";
+            case SHA1    : return "SHA-1";
+            case SHA224  : return "SHA-224";
+            case SHA256  : return "SHA-256";
+            case SHA384  : return "SHA-384";
+            case SHA512  : return "SHA-512";
+            case SHA3_256: return "SHA3-256";
+            default      : return null;
+        }
+    }
+
+    /** Checksum files contain the hex value optionally followed by the file name */
+    private static String fetch(final URI uri, final Transport transport) throws IOException {
+        final HttpResponse<InputStream> response = transport.send(transport.newRequest(uri).build());
+        try (InputStream is = response.body()) {
+            if (response.statusCode() != HttpURLConnection.HTTP_OK) { throw new IOException("Server returned " + response.statusCode() + " for " + uri); }
+            final String content = new String(is.readNBytes(4096), StandardCharsets.UTF_8).trim();
+            return content.isEmpty() ? "" : content.split("\\s+")[0];
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+
+
+public class ChecksumMismatchException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final Path quarantined;
+
+
+    public ChecksumMismatchException(final URI uri, final Checksum expected, final String actual, final Path quarantined) {
+        super("Checksum of " + uri + " is " + actual + " instead of " + expected + ", file moved to " + quarantined);
+        this.quarantined = quarantined;
+    }
+
+
+    public Path getQuarantined() { return quarantined; }
+}
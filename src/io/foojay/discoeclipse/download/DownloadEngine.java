@@ -0,0 +1,474 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.extract.ArchiveExtractor;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.net.HttpTransport;
+import io.foojay.discoeclipse.net.Transport;
+
+
+/**
+ * Downloads a file either as a single stream or, if the server accepts range requests,
+ * as chunks that are fetched in parallel and written to their position in a preallocated
+ * file. The number of parallel connections grows as long as it increases the throughput.
+ * Completed ranges are journaled so that failed requests and interrupted downloads
+ * continue from the last written byte.
+ */
+public class DownloadEngine {
+    public  static final long    MIN_SEGMENTED_SIZE = 16 * 1024 * 1024;
+    public  static final int     CHUNK_SIZE         = 4 * 1024 * 1024;
+    public  static final int     MAX_CONNECTIONS    = 8;
+    private static final int     BUFFER_SIZE        = 64 * 1024;
+    private static final long    SAMPLE_INTERVAL    = 1_000;
+    private static final double  MIN_GAIN           = 1.1;
+    private static final int     MAX_ATTEMPTS       = 6;
+    private static final long    INITIAL_BACKOFF    = 1_000;
+    private static final long    MAX_BACKOFF        = 30_000;
+    private static final String  PART_SUFFIX        = ".part";
+    private static final String  QUARANTINE_SUFFIX  = ".quarantined";
+    private static final String  REPLACED_SUFFIX    = ".replaced";
+    private static       DownloadEngine defaultEngine;
+
+    private final Transport                 transport;
+    private final Supplier<ExecutorService> executor;
+    private final int                       maxConnections;
+    private final BandwidthLimiter          limiter;
+
+
+    /** The executor for the segments is asked for once per download, so it may be replaced in between */
+    public DownloadEngine(final Transport transport, final Supplier<ExecutorService> executor, final int maxConnections, final BandwidthLimiter limiter) {
+        this.transport      = transport;
+        this.executor       = executor;
+        this.maxConnections = maxConnections;
+        this.limiter        = limiter;
+    }
+
+
+    public static synchronized DownloadEngine getDefault() {
+        if (null == defaultEngine) {
+            defaultEngine = new DownloadEngine(HttpTransport.getDefault(), () -> DiscoExecutors.get(Workload.DOWNLOAD), MAX_CONNECTIONS, new BandwidthLimiter(0));
+        }
+        return defaultEngine;
+    }
+
+
+    public Transport getTransport() { return transport; }
+
+    public BandwidthLimiter getBandwidthLimiter() { return limiter; }
+
+    public static Path getPartFile(final Path target) { return target.resolveSibling(target.getFileName() + PART_SUFFIX); }
+
+    /** Removes the partial file and journal of an unfinished download */
+    public static void discard(final Path target) throws IOException {
+        final Path part = getPartFile(target);
+        Files.deleteIfExists(DownloadJournal.getFile(part));
+        Files.deleteIfExists(part);
+    }
+
+    /**
+     * Downloads the given uri to the target file and blocks until the download has finished.
+     * The data is written to a .part file next to the target which is renamed once complete.
+     * An unfinished download of the same file continues where it stopped as long as the
+     * remote file did not change. Interrupting the calling thread cancels the download.
+     */
+    public void download(final URI uri, final Path target, final DownloadListener listener) throws IOException {
+        download(uri, target, null, listener);
+    }
+
+    /**
+     * Downloads the given uri like download(uri, target, listener) and verifies the file
+     * against the given checksum while it is written. A file that does not match is moved
+     * to a .quarantined file and a ChecksumMismatchException is thrown.
+     */
+    public void download(final URI uri, final Path target, final Checksum checksum, final DownloadListener listener) throws IOException {
+        final HttpResponse<InputStream> probe = retry(uri, () -> transport.send(transport.newRequest(uri).method("HEAD", HttpRequest.BodyPublishers.noBody()).build()));
+        probe.body().close();
+        final int     responseCode  = probe.statusCode();
+        final long    contentLength = getContentLength(probe);
+        final boolean acceptsRanges = probe.headers().firstValue("Accept-Ranges").filter("bytes"::equalsIgnoreCase).isPresent();
+        final String  validator     = probe.headers().firstValue("ETag").or(() -> probe.headers().firstValue("Last-Modified")).orElse(null);
+        final URI     location      = probe.uri();
+
+        final Path            part    = getPartFile(target);
+        final DownloadJournal journal = DownloadJournal.open(part, contentLength, validator);
+        listener.started(contentLength);
+        if (journal.getCompletedBytes() > 0) { listener.transferred(journal.getCompletedBytes()); }
+
+        final byte[] digest;
+        if (responseCode == HttpURLConnection.HTTP_OK && acceptsRanges && contentLength >= MIN_SEGMENTED_SIZE && maxConnections > 1) {
+            digest = downloadSegmented(location, part, journal, checksum, listener);
+        } else {
+            digest = downloadStream(location, part, journal, acceptsRanges, checksum, listener);
+        }
+        journal.delete();
+        if (null != checksum && !checksum.matches(digest)) {
+            final Path quarantined = target.resolveSibling(target.getFileName() + QUARANTINE_SUFFIX);
+            Files.move(part, quarantined, StandardCopyOption.REPLACE_EXISTING);
+            throw new ChecksumMismatchException(uri, checksum, Checksum.toHex(digest), quarantined);
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Downloads an archive as a single stream and extracts it into the given directory while
+     * it is received, the archive itself is never written to disk. The contents are extracted
+     * to a hidden directory first and moved into place once complete and verified. Returns
+     * the extracted top level directory, usually the JDK home.
+     */
+    public Path downloadAndExtract(final URI uri, final Path directory, final ArchiveType archiveType, final Checksum checksum, final DownloadListener listener) throws IOException {
+        final String filename    = Path.of(uri.getPath()).getFileName().toString();
+        final Path   temp        = directory.resolve("." + filename + ".extracting");
+        final long[] transferred = { 0 };
+        final byte[] digest      = retry(uri, () -> {
+            ArchiveExtractor.delete(temp);
+            Files.createDirectories(temp);
+            if (transferred[0] > 0) { listener.transferred(-transferred[0]); }
+            transferred[0] = 0;
+
+            final HttpResponse<InputStream> response = check(transport.send(transport.newRequest(uri).build()));
+            listener.started(getContentLength(response));
+            final MessageDigest messageDigest = null == checksum ? null : checksum.createDigest();
+            try (InputStream raw = response.body();
+                 InputStream in  = new ProgressInputStream(null == messageDigest ? raw : new DigestInputStream(raw, messageDigest), limiter, bytes -> {
+                     transferred[0] += bytes;
+                     listener.transferred(bytes);
+                 })) {
+                ArchiveExtractor.extract(in, archiveType, temp);
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return null == messageDigest ? null : messageDigest.digest();
+        });
+
+        if (null != checksum && !checksum.matches(digest)) {
+            final Path quarantined = directory.resolve(filename + QUARANTINE_SUFFIX);
+            ArchiveExtractor.delete(quarantined);
+            Files.move(temp, quarantined);
+            throw new ChecksumMismatchException(uri, checksum, Checksum.toHex(digest), quarantined);
+        }
+
+        return install(temp, directory, filename);
+    }
+
+    /** Extracts a local archive like downloadAndExtract() would extract the downloaded one */
+    public static Path extract(final Path archive, final Path directory, final ArchiveType archiveType) throws IOException {
+        final String filename = archive.getFileName().toString();
+        final Path   temp     = directory.resolve("." + filename + ".extracting");
+        ArchiveExtractor.delete(temp);
+        Files.createDirectories(temp);
+        try (InputStream in = Files.newInputStream(archive)) {
+            ArchiveExtractor.extract(in, archiveType, temp);
+        } catch (IOException e) {
+            ArchiveExtractor.delete(temp);
+            throw e;
+        }
+        return install(temp, directory, filename);
+    }
+
+
+    /**
+     * Moves the single top level directory of the extracted archive, or the whole extraction
+     * if there is none, into the directory. An existing directory of the same name, e.g. from
+     * extracting the same JDK before, is moved aside first and only deleted once the new one
+     * is in place, so it is restored if the move fails.
+     */
+    private static Path install(final Path temp, final Path directory, final String filename) throws IOException {
+        final List<Path> content;
+        try (Stream<Path> children = Files.list(temp)) { content = children.collect(Collectors.toList()); }
+        final Path source   = content.size() == 1 && Files.isDirectory(content.get(0)) ? content.get(0) : temp;
+        final Path home     = directory.resolve(source == temp ? ArchiveExtractor.getBaseName(filename) : source.getFileName().toString());
+        final Path replaced = directory.resolve("." + home.getFileName() + REPLACED_SUFFIX);
+        try {
+            ArchiveExtractor.delete(replaced);
+            if (Files.exists(home, LinkOption.NOFOLLOW_LINKS)) { Files.move(home, replaced); }
+            try {
+                Files.move(source, home);
+            } catch (IOException e) {
+                if (Files.exists(replaced, LinkOption.NOFOLLOW_LINKS)) { Files.move(replaced, home); }
+                throw e;
+            }
+            ArchiveExtractor.delete(replaced);
+        } finally {
+            ArchiveExtractor.delete(temp);
+        }
+        return home;
+    }
+
+
+    private byte[] downloadStream(final URI uri, final Path part, final DownloadJournal journal, final boolean acceptsRanges, final Checksum checksum, final DownloadListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final OrderedDigest digest = createDigest(checksum, channel, journal);
+            final long          end    = retry(uri, () -> {
+                long offset = acceptsRanges ? journal.getContiguousLength() : 0;
+                final HttpRequest.Builder request = transport.newRequest(uri);
+                if (offset > 0) { request.header("Range", "bytes=" + offset + "-"); }
+                final HttpResponse<InputStream> response = check(transport.send(request.build()));
+                if (offset > 0 && response.statusCode() != HttpURLConnection.HTTP_PARTIAL) { offset = 0; }
+                if (0 == offset && journal.getCompletedBytes() > 0) {
+                    listener.transferred(-journal.getCompletedBytes());
+                    journal.reset();
+                    if (null != digest) { digest.reset(); }
+                }
+                return transfer(response.body(), channel, offset, Long.MAX_VALUE, journal, digest, listener::transferred);
+            });
+            channel.truncate(end);
+            return null == digest ? null : digest.finish(end);
+        }
+    }
+
+    private byte[] downloadSegmented(final URI uri, final Path part, final DownloadJournal journal, final Checksum checksum, final DownloadListener listener) throws IOException {
+        final long          contentLength = journal.getLength();
+        final Queue<long[]> chunks        = new ConcurrentLinkedQueue<>();
+        for (long start = 0 ; start < contentLength ; start += CHUNK_SIZE) {
+            final long end = Math.min(start + CHUNK_SIZE, contentLength) - 1;
+            if (!journal.isComplete(start, end)) { chunks.add(new long[] { start, end, start }); }
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw")) {
+            if (file.length() != contentLength) { file.setLength(contentLength); }
+            final FileChannel                channel     = file.getChannel();
+            final OrderedDigest              digest      = createDigest(checksum, channel, journal);
+            final AtomicLong                 transferred = new AtomicLong();
+            final AtomicReference<Throwable> failure     = new AtomicReference<>();
+            final List<Future<?>>            workers     = new ArrayList<>();
+            final ExecutorService            segments    = executor.get();
+            final Runnable                   worker      = () -> {
+                try {
+                    long[] chunk;
+                    while (null == failure.get() && null != (chunk = chunks.poll())) {
+                        final long[] range = chunk;
+                        retry(uri, () -> fetchChunk(uri, channel, range, digest, bytes -> {
+                            transferred.addAndGet(bytes);
+                            listener.transferred(bytes);
+                        }));
+                        journal.complete(range[0], range[1]);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            };
+
+            try {
+                workers.add(segments.submit(worker));
+                workers.add(segments.submit(worker));
+                double lastThroughput = 0;
+                long   lastBytes      = 0;
+                while (!allDone(workers)) {
+                    await(workers, SAMPLE_INTERVAL);
+                    long   bytes      = transferred.get();
+                    double throughput = (bytes - lastBytes) / (double) SAMPLE_INTERVAL;
+                    lastBytes = bytes;
+                    if (workers.size() < maxConnections && !chunks.isEmpty() && throughput > lastThroughput * MIN_GAIN) {
+                        workers.add(segments.submit(worker));
+                    }
+                    lastThroughput = Math.max(lastThroughput, throughput);
+                }
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+                Thread.currentThread().interrupt();
+            } catch (RejectedExecutionException e) {
+                failure.compareAndSet(null, Thread.currentThread().isInterrupted() ? new InterruptedException() : e);
+            } finally {
+                workers.forEach(future -> future.cancel(true));
+            }
+
+            Throwable throwable = failure.get();
+            if (throwable instanceof IOException)          { throw (IOException) throwable; }
+            if (throwable instanceof InterruptedException) { throw new InterruptedIOException("Download cancelled"); }
+            if (null != throwable)                         { throw new IOException(throwable); }
+            return null == digest ? null : digest.finish(contentLength);
+        }
+    }
+
+    /** Fetches the range {start, end, position} from its current position which advances while writing */
+    private Void fetchChunk(final URI uri, final FileChannel channel, final long[] range, final OrderedDigest digest, final LongConsumer progress) throws IOException {
+        final HttpResponse<InputStream> response = check(transport.send(transport.newRequest(uri).header("Range", "bytes=" + range[2] + "-" + range[1]).build()));
+        if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+            response.body().close();
+            throw new PermanentException("Server did not honor range request for " + uri + " (" + response.statusCode() + ")");
+        }
+        transfer(response.body(), channel, range[2], range[1], null, digest, bytes -> {
+            range[2] += bytes;
+            progress.accept(bytes);
+        });
+        return null;
+    }
+
+    /**
+     * Writes the response body to the channel starting at the given position and returns the
+     * position after the last written byte. If a journal is given the written ranges are
+     * recorded every CHUNK_SIZE bytes and when the transfer stops, if a digest is given it
+     * is updated with every written buffer.
+     */
+    private long transfer(final InputStream body, final FileChannel channel, final long start, final long end, final DownloadJournal journal, final OrderedDigest digest, final LongConsumer progress) throws IOException {
+        final ByteBuffer buffer   = ByteBuffer.allocate(BUFFER_SIZE);
+        long             position = start;
+        long             recorded = start;
+        try (InputStream is = body) {
+            int read;
+            // end is Long.MAX_VALUE for streams of unknown length, end - position + 1 would overflow
+            while (position <= end && (read = is.read(buffer.array(), 0, (int) Math.min(BUFFER_SIZE - 1, end - position) + 1)) != -1) {
+                if (Thread.currentThread().isInterrupted()) { throw new InterruptedIOException("Download cancelled"); }
+                limiter.acquire(read);
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) { position += channel.write(buffer, position); }
+                if (null != digest) { digest.update(position - read, ByteBuffer.wrap(buffer.array(), 0, read)); }
+                progress.accept(read);
+                if (null != journal && position - recorded >= CHUNK_SIZE) {
+                    journal.complete(recorded, position - 1);
+                    recorded = position;
+                }
+            }
+            if (end != Long.MAX_VALUE && position <= end) { throw new IOException("Connection closed before end of range " + start + "-" + end); }
+        } finally {
+            if (null != journal) { journal.complete(recorded, position - 1); }
+        }
+        return position;
+    }
+
+    /** Creates the digest for the checksum and feeds it the ranges an earlier session has written */
+    private OrderedDigest createDigest(final Checksum checksum, final FileChannel channel, final DownloadJournal journal) throws IOException {
+        if (null == checksum) { return null; }
+        final OrderedDigest digest = new OrderedDigest(checksum.createDigest(), channel, (long) maxConnections * CHUNK_SIZE);
+        for (long[] range : journal.getRanges()) { digest.written(range[0], range[1]); }
+        return digest;
+    }
+
+    /**
+     * Calls the given request until it succeeds, waiting twice as long after every failed
+     * attempt. Cancellation and errors the server will answer the same way again are not retried.
+     */
+    private static <T> T retry(final URI uri, final IOCallable<T> request) throws IOException {
+        long backoff = INITIAL_BACKOFF;
+        for (int attempt = 1 ; ; attempt++) {
+            try {
+                return request.call();
+            } catch (IOException e) {
+                if (attempt >= MAX_ATTEMPTS || e instanceof PermanentException || isCancellation(e)) { throw e; }
+                Metrics.getDefault().recordRetry(uri, attempt, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Download cancelled");
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        }
+    }
+
+    private static boolean isCancellation(final IOException e) {
+        return Thread.currentThread().isInterrupted() || (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException));
+    }
+
+    private static HttpResponse<InputStream> check(final HttpResponse<InputStream> response) throws IOException {
+        final int responseCode = response.statusCode();
+        if (responseCode < 400) { return response; }
+        response.body().close();
+        final String message = "Server returned " + responseCode + " for " + response.uri();
+        if (responseCode < 500 && responseCode != 408 && responseCode != 429) { throw new PermanentException(message); }
+        throw new IOException(message);
+    }
+
+    private static long getContentLength(final HttpResponse<?> response) { return response.headers().firstValueAsLong("Content-Length").orElse(-1); }
+
+    private static boolean allDone(final List<Future<?>> futures) {
+        return futures.stream().allMatch(Future::isDone);
+    }
+
+    private static void await(final List<Future<?>> futures, final long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        for (Future<?> future : futures) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) { return; }
+            try {
+                future.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException | CancellationException e) {
+                // sampling only, failures are reported by the workers themselves
+            }
+        }
+    }
+
+
+    @FunctionalInterface private interface IOCallable<T> {
+        T call() throws IOException;
+    }
+
+
+    /** Reports the bytes read, keeps to the bandwidth limit and stops reading once the thread has been interrupted */
+    private static class ProgressInputStream extends FilterInputStream {
+        private final BandwidthLimiter limiter;
+        private final LongConsumer     progress;
+
+
+        ProgressInputStream(final InputStream in, final BandwidthLimiter limiter, final LongConsumer progress) {
+            super(in);
+            this.limiter  = limiter;
+            this.progress = progress;
+        }
+
+
+        @Override public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) { progress.accept(1); }
+            return b;
+        }
+
+        @Override public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (Thread.currentThread().isInterrupted()) { throw new InterruptedIOException("Download cancelled"); }
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                limiter.acquire(read);
+                progress.accept(read);
+            }
+            return read;
+        }
+    }
+
+
+    /** Marks failures that will not go away by retrying */
+    private static class PermanentException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        PermanentException(final String message) { super(message); }
+    }
+}
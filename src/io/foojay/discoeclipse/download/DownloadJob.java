@@ -0,0 +1,101 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.metrics.Sample;
+
+
+/**
+ * One queued download. The job waits for a free slot of its manager before it starts
+ * transferring and reports its progress to the progress view and an optional listener.
+ */
+public class DownloadJob extends Job {
+    private static final int TOTAL_WORK = 1000;
+
+    private final DownloadManager  manager;
+    private final Transfer         transfer;
+    private final DownloadListener listener;
+    private volatile Path          result;
+
+
+    DownloadJob(final DownloadManager manager, final String name, final Transfer transfer, final DownloadListener listener) {
+        super(name);
+        this.manager  = manager;
+        this.transfer = transfer;
+        this.listener = listener;
+    }
+
+
+    /** Returns the downloaded file or extracted directory once the job finished successfully */
+    public Path getDownloadedPath() { return result; }
+
+    @Override public boolean belongsTo(final Object family) { return DownloadManager.FAMILY == family; }
+
+    @Override protected IStatus run(final IProgressMonitor monitor) {
+        final SubMonitor progress = SubMonitor.convert(monitor, getName(), TOTAL_WORK);
+        progress.subTask("Waiting for a free download slot");
+        try {
+            if (!manager.acquire(this, monitor)) { return Status.CANCEL_STATUS; }
+        } catch (InterruptedException e) {
+            return Status.CANCEL_STATUS;
+        }
+        final Sample sample      = Metrics.getDefault().startDownload(getName());
+        final long[] transferred = { 0 };
+        try {
+            progress.subTask("");
+            result = transfer.run(new DownloadListener() {
+                private long total;
+                private long length = -1;
+                private int  reported;
+
+                @Override public synchronized void started(final long contentLength) {
+                    length = contentLength;
+                    listener.started(contentLength);
+                }
+
+                @Override public synchronized void transferred(final long bytes) {
+                    total += bytes;
+                    transferred[0] = total;
+                    listener.transferred(bytes);
+                    if (length <= 0) { return; }
+                    final int done = (int) Math.min(TOTAL_WORK, total * TOTAL_WORK / length);
+                    if (done > reported) {
+                        progress.worked(done - reported);
+                        reported = done;
+                    }
+                }
+            });
+            sample.stop(transferred[0], false);
+            return Status.OK_STATUS;
+        } catch (IOException e) {
+            if (monitor.isCanceled() || (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted())) { return Status.CANCEL_STATUS; }
+            return new Status(IStatus.ERROR, Constants.PLUGIN_ID, getName() + " failed: " + e.getMessage(), e);
+        } finally {
+            // anything but a successful transfer counts as failed, cancelled downloads included
+            sample.stop(transferred[0], true);
+            Thread.interrupted();
+            manager.release();
+            monitor.done();
+        }
+    }
+
+    @Override protected void canceling() {
+        final Thread thread = getThread();
+        if (null != thread) { thread.interrupt(); }
+    }
+
+
+    @FunctionalInterface interface Transfer {
+        Path run(DownloadListener listener) throws IOException;
+    }
+}
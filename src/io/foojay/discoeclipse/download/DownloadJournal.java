@@ -0,0 +1,127 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Records which byte ranges of a partial download have been written. The journal is a
+ * small text file next to the partial file, the first line identifies the remote file
+ * by its length and validator (ETag or Last-Modified), every following line is one
+ * completed range. If the remote file changed the journal starts over.
+ */
+public class DownloadJournal {
+    private static final String HEADER_PREFIX = "length=";
+
+    private final Path                file;
+    private final long                length;
+    private final String              validator;
+    private final TreeMap<Long, Long> ranges;
+
+
+    private DownloadJournal(final Path file, final long length, final String validator) {
+        this.file      = file;
+        this.length    = length;
+        this.validator = null == validator ? "" : validator;
+        this.ranges    = new TreeMap<>();
+    }
+
+
+    /**
+     * Opens the journal of the given partial file. Returns an empty journal if there is
+     * none or if it was written for a different length or validator.
+     */
+    public static DownloadJournal open(final Path partFile, final long length, final String validator) throws IOException {
+        final DownloadJournal journal = new DownloadJournal(getFile(partFile), length, validator);
+        if (Files.exists(journal.file)) {
+            final List<String> lines = Files.readAllLines(journal.file, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && lines.get(0).equals(journal.header())) {
+                for (String line : lines.subList(1, lines.size())) {
+                    final int separator = line.indexOf('-');
+                    if (separator < 0) { continue; }
+                    try {
+                        journal.add(Long.parseLong(line.substring(0, separator)), Long.parseLong(line.substring(separator + 1)));
+                    } catch (NumberFormatException e) {
+                        // last line might be incomplete if the process died while writing it
+                    }
+                }
+                return journal;
+            }
+        }
+        journal.reset();
+        return journal;
+    }
+
+    public static Path getFile(final Path partFile) { return partFile.resolveSibling(partFile.getFileName() + ".journal"); }
+
+    public static boolean exists(final Path partFile) { return Files.exists(getFile(partFile)); }
+
+
+    public long getLength() { return length; }
+
+    public String getValidator() { return validator; }
+
+    /** Marks the inclusive range start-end as written */
+    public synchronized void complete(final long start, final long end) throws IOException {
+        if (end < start) { return; }
+        add(start, end);
+        Files.writeString(file, start + "-" + end + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    public synchronized boolean isComplete(final long start, final long end) {
+        final Map.Entry<Long, Long> range = ranges.floorEntry(start);
+        return null != range && range.getValue() >= end;
+    }
+
+    public synchronized boolean isComplete() { return length >= 0 && isComplete(0, length - 1); }
+
+    /** Returns the offset of the first byte that has not been written yet */
+    public synchronized long getContiguousLength() {
+        final Map.Entry<Long, Long> first = ranges.firstEntry();
+        return null == first || first.getKey() > 0 ? 0 : first.getValue() + 1;
+    }
+
+    /** Returns the completed ranges as {start, end} pairs in ascending order */
+    public synchronized List<long[]> getRanges() {
+        final List<long[]> result = new ArrayList<>();
+        ranges.forEach((start, end) -> result.add(new long[] { start, end }));
+        return result;
+    }
+
+    public synchronized long getCompletedBytes() {
+        return ranges.entrySet().stream().mapToLong(range -> range.getValue() - range.getKey() + 1).sum();
+    }
+
+    /** Forgets all completed ranges, used if the server does not resume the download */
+    public synchronized void reset() throws IOException {
+        ranges.clear();
+        Files.writeString(file, header() + "\n", StandardCharsets.UTF_8);
+    }
+
+    public void delete() throws IOException { Files.deleteIfExists(file); }
+
+
+    private String header() { return HEADER_PREFIX + length + " " + validator; }
+
+    private void add(long start, long end) {
+        final Map.Entry<Long, Long> before = ranges.floorEntry(start);
+        if (null != before && before.getValue() >= start - 1) {
+            start = before.getKey();
+            end   = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> after = ranges.ceilingEntry(start);
+        while (null != after && after.getKey() <= end + 1) {
+            end = Math.max(end, after.getValue());
+            ranges.remove(after.getKey());
+            after = ranges.ceilingEntry(start);
+        }
+        ranges.put(start, end);
+    }
+}
@@ -0,0 +1,15 @@
+package io.foojay.discoeclipse.download;
+
+
+public interface DownloadListener {
+    DownloadListener NONE = new DownloadListener() {};
+
+    /** Called once the size of the download is known, -1 if the server did not send it */
+    default void started(final long contentLength) {}
+
+    /**
+     * Called with the number of bytes that have been written since the last call. This is
+     * negative if a resumed download had to start over because the server ignored the range.
+     */
+    default void transferred(final long bytes) {}
+}
@@ -0,0 +1,268 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import io.foojay.api.discoclient.DiscoClient;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.api.discoclient.util.PkgInfo;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.download.PendingDownloads.PendingDownload;
+import io.foojay.discoeclipse.jre.JreRegistrar;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.metrics.Sample;
+import io.foojay.discoeclipse.net.Mirror;
+
+
+/**
+ * Queue for downloads that run as Eclipse jobs independent of any dialog. At most the
+ * configured number of downloads transfer at the same time, the others wait in the order
+ * they were queued. All transfers share the bandwidth limit of the download engine.
+ * In mirror mode packages are downloaded from the mirror, packages the mirror does not
+ * provide are downloaded from their vendor.
+ * Extracted JDKs are added to the Installed JREs unless this is switched off.
+ */
+public class DownloadManager {
+    public  static final Object FAMILY                = DownloadManager.class;
+    public  static final int    DEFAULT_MAX_DOWNLOADS = 2;
+    private static final long   WAIT_INTERVAL         = 250;
+    private static       DownloadManager defaultManager;
+
+    private final DownloadEngine     engine;
+    private final ArchiveStore       store;
+    private final Mirror             mirror;
+    private final Deque<DownloadJob> waiting;
+    private int                      running;
+    private int                      maxDownloads;
+    private volatile boolean         registerJres;
+    private DiscoClient              discoClient;
+
+
+    public DownloadManager(final DownloadEngine engine, final ArchiveStore store, final Mirror mirror, final int maxDownloads) {
+        this.engine       = engine;
+        this.store        = store;
+        this.mirror       = mirror;
+        this.waiting      = new ArrayDeque<>();
+        this.running      = 0;
+        this.maxDownloads = maxDownloads;
+        this.registerJres = true;
+    }
+
+
+    public static synchronized DownloadManager getDefault() {
+        if (null == defaultManager) {
+            IEclipsePreferences preferences = InstanceScope.INSTANCE.getNode(Constants.PLUGIN_ID);
+            defaultManager = new DownloadManager(DownloadEngine.getDefault(), ArchiveStore.getDefault(), Mirror.getDefault(), preferences.getInt(Constants.PREFERENCE_MAX_DOWNLOADS, DEFAULT_MAX_DOWNLOADS));
+            defaultManager.setBandwidthLimit(preferences.getInt(Constants.PREFERENCE_BANDWIDTH_LIMIT, 0) * 1024L);
+            defaultManager.setRegisterJres(preferences.getBoolean(Constants.PREFERENCE_REGISTER_JRES, true));
+            preferences.addPreferenceChangeListener(event -> {
+                if (Constants.PREFERENCE_MAX_DOWNLOADS.equals(event.getKey())) {
+                    defaultManager.setMaxDownloads(preferences.getInt(Constants.PREFERENCE_MAX_DOWNLOADS, DEFAULT_MAX_DOWNLOADS));
+                } else if (Constants.PREFERENCE_BANDWIDTH_LIMIT.equals(event.getKey())) {
+                    defaultManager.setBandwidthLimit(preferences.getInt(Constants.PREFERENCE_BANDWIDTH_LIMIT, 0) * 1024L);
+                } else if (Constants.PREFERENCE_REGISTER_JRES.equals(event.getKey())) {
+                    defaultManager.setRegisterJres(preferences.getBoolean(Constants.PREFERENCE_REGISTER_JRES, true));
+                }
+            });
+        }
+        return defaultManager;
+    }
+
+
+    public synchronized int getMaxDownloads() { return maxDownloads; }
+    public synchronized void setMaxDownloads(final int maxDownloads) {
+        this.maxDownloads = Math.max(1, maxDownloads);
+        notifyAll();
+    }
+
+    /** Limit in bytes per second for all downloads together, 0 means unlimited */
+    public long getBandwidthLimit() { return engine.getBandwidthLimiter().getBytesPerSecond(); }
+    public void setBandwidthLimit(final long bytesPerSecond) { engine.getBandwidthLimiter().setBytesPerSecond(bytesPerSecond); }
+
+    /** If set extracted JDKs are added to the Installed JREs of Eclipse */
+    public boolean isRegisterJres() { return registerJres; }
+    public void setRegisterJres(final boolean registerJres) { this.registerJres = registerJres; }
+
+    /**
+     * Queues the download of the given package into the folder and returns its already
+     * scheduled job. If extract is set the archive will be extracted instead of saved.
+     */
+    public DownloadJob enqueue(final Pkg pkg, final Path folder, final boolean extract, final DownloadListener listener) {
+        return schedule(new DownloadJob(this, "Downloading " + pkg.getFileName(), progress -> {
+            final Path downloaded = download(pkg, folder, extract, progress);
+            if (extract) { register(downloaded); }
+            return downloaded;
+        }, listener));
+    }
+
+    /** Queues an unfinished download of an earlier session */
+    public DownloadJob resume(final PendingDownload download) {
+        return schedule(new DownloadJob(this, "Downloading " + download.getTarget().getFileName(), progress -> {
+            engine.download(download.getUri(), download.getTarget(), download.getChecksum(), progress);
+            PendingDownloads.getDefault().remove(download.getTarget());
+            return download.getTarget();
+        }, DownloadListener.NONE));
+    }
+
+    /** Cancels all queued and running downloads */
+    public void cancelAll() { Job.getJobManager().cancel(FAMILY); }
+
+
+    synchronized boolean acquire(final DownloadJob job, final IProgressMonitor monitor) throws InterruptedException {
+        waiting.add(job);
+        try {
+            while (waiting.peek() != job || running >= maxDownloads) {
+                if (monitor.isCanceled()) { return false; }
+                wait(WAIT_INTERVAL);
+            }
+            running++;
+            return true;
+        } finally {
+            waiting.remove(job);
+            notifyAll();
+        }
+    }
+
+    synchronized void release() {
+        running--;
+        notifyAll();
+    }
+
+
+    private DownloadJob schedule(final DownloadJob job) {
+        job.setUser(false);
+        job.schedule();
+        return job;
+    }
+
+    private synchronized DiscoClient getDiscoClient() {
+        if (null == discoClient) { discoClient = new DiscoClient(Constants.USER_AGENT); }
+        return discoClient;
+    }
+
+    /** A JDK that can not be registered is still a successful download */
+    private void register(final Path home) {
+        if (!registerJres || !JreRegistrar.isAvailable()) { return; }
+        try {
+            final String name = JreRegistrar.register(home);
+            if (null != name) { log(IStatus.INFO, "Added " + name + " to the Installed JREs", null); }
+        } catch (IOException e) {
+            log(IStatus.WARNING, "Could not add " + home + " to the Installed JREs", e);
+        }
+    }
+
+    private Path download(final Pkg pkg, final Path folder, final boolean extract, final DownloadListener listener) throws IOException {
+        // a package that was stored before needs no api call and is also available offline
+        final String storedKey = store.findKey(pkg.getId());
+        if (null != storedKey) {
+            final Path retrieved = retrieve(storedKey, pkg, pkg.getFileName(), folder, extract);
+            if (null != retrieved) { return retrieved; }
+        }
+        if (mirror.isEnabled()) {
+            try {
+                final Checksum checksum = Checksum.lookup(mirror.getInfoUri(pkg), engine.getTransport());
+                if (null != checksum) { return download(pkg, mirror.getArchiveUri(pkg), pkg.getFileName(), checksum, folder, extract, listener); }
+            } catch (ChecksumMismatchException e) {
+                throw e;
+            } catch (IOException e) {
+                if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) { throw e; }
+                log(IStatus.INFO, "Could not download " + pkg.getFileName() + " from the mirror, downloading it from upstream", e);
+            }
+        }
+        final PkgInfo  pkgInfo  = getPkgInfo(pkg);
+        final Checksum checksum = lookupChecksum(pkg);
+        if (null == checksum) { log(IStatus.INFO, "No checksum available for " + pkgInfo.getFileName() + ", download will not be verified", null); }
+        return download(pkg, URI.create(pkgInfo.getDirectDownloadUri()), pkgInfo.getFileName(), checksum, folder, extract, listener);
+    }
+
+    private Path download(final Pkg pkg, final URI uri, final String fileName, final Checksum checksum, final Path folder, final boolean extract, final DownloadListener listener) throws IOException {
+        final Path target = folder.resolve(fileName);
+
+        final String key       = ArchiveStore.getKey(pkg, checksum);
+        final Path   retrieved = retrieve(key, pkg, fileName, folder, extract);
+        if (null != retrieved) { return retrieved; }
+        if (extract) { return engine.downloadAndExtract(uri, folder, pkg.getArchiveType(), checksum, listener); }
+
+        PendingDownloads.getDefault().add(uri, target, checksum);
+        engine.download(uri, target, checksum, listener);
+        PendingDownloads.getDefault().remove(target);
+        try {
+            store.store(key, pkg.getId(), checksum, target);
+        } catch (IOException e) {
+            log(IStatus.WARNING, "Could not add " + fileName + " to the archive store", e);
+        }
+        return target;
+    }
+
+    /** Links or extracts the stored archive with the given key into the folder, returns null if it is not in the store */
+    private Path retrieve(final String key, final Pkg pkg, final String fileName, final Path folder, final boolean extract) throws IOException {
+        if (extract) {
+            final Path stored = store.lookup(key);
+            return null == stored ? null : extract(stored, folder, pkg);
+        }
+        final Path target = folder.resolve(fileName);
+        return store.retrieve(key, target) ? target : null;
+    }
+
+    /** Extractions of stored archives are bound by the disk, only a few of them run at the same time */
+    private static Path extract(final Path archive, final Path folder, final Pkg pkg) throws IOException {
+        final Future<Path> extraction;
+        try {
+            extraction = DiscoExecutors.get(Workload.EXTRACT).submit(() -> DownloadEngine.extract(archive, folder, pkg.getArchiveType()));
+        } catch (RejectedExecutionException e) {
+            throw new InterruptedIOException("Extraction of " + archive.getFileName() + " cancelled");
+        }
+        try {
+            return extraction.get();
+        } catch (InterruptedException e) {
+            extraction.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction of " + archive.getFileName() + " cancelled");
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Extraction of " + archive.getFileName() + " cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private PkgInfo getPkgInfo(final Pkg pkg) {
+        final Sample  sample  = Metrics.getDefault().startApiCall("getPkgInfo");
+        final PkgInfo pkgInfo = getDiscoClient().getPkgInfo(pkg.getEphemeralId(), pkg.getJavaVersion());
+        sample.stop(null == pkgInfo);
+        return pkgInfo;
+    }
+
+    private Checksum lookupChecksum(final Pkg pkg) throws IOException {
+        final Sample sample = Metrics.getDefault().startApiCall("getChecksum");
+        try {
+            final Checksum checksum = Checksum.lookup(pkg.getEphemeralId(), engine.getTransport());
+            sample.stop(false);
+            return checksum;
+        } finally {
+            sample.stop(true);
+        }
+    }
+
+    private static void log(final int severity, final String message, final Throwable throwable) {
+        Platform.getLog(DownloadManager.class).log(new Status(severity, Constants.PLUGIN_ID, message, throwable));
+    }
+}
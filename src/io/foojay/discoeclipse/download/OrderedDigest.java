@@ -0,0 +1,129 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Computes a digest over data that is written to a file at arbitrary positions. Data
+ * at the current end of the digested prefix goes straight into the digest, data further
+ * ahead is kept in memory up to a limit until the gap before it is filled. Ranges above
+ * the limit or written by an earlier session are read back from the file when the
+ * prefix reaches them, so every byte is digested exactly once and in order.
+ */
+public class OrderedDigest {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MessageDigest        digest;
+    private final FileChannel          channel;
+    private final long                 bufferLimit;
+    private final TreeMap<Long, Piece> pieces;
+    private long                       position;
+    private long                       buffered;
+
+
+    public OrderedDigest(final MessageDigest digest, final FileChannel channel, final long bufferLimit) {
+        this.digest      = digest;
+        this.channel     = channel;
+        this.bufferLimit = bufferLimit;
+        this.pieces      = new TreeMap<>();
+        this.position    = 0;
+        this.buffered    = 0;
+    }
+
+
+    /** Called after the remaining bytes of data have been written to the file at the given offset */
+    public synchronized void update(final long offset, final ByteBuffer data) throws IOException {
+        final long end = offset + data.remaining();
+        if (end <= position) { return; }
+        if (offset <= position) {
+            data.position(data.position() + (int) (position - offset));
+            digest.update(data);
+            position = end;
+            drain();
+        } else if (buffered + data.remaining() <= bufferLimit) {
+            final byte[] copy = new byte[data.remaining()];
+            data.get(copy);
+            pieces.put(offset, new Piece(end - 1, copy));
+            buffered += copy.length;
+        } else {
+            written(offset, end - 1);
+        }
+    }
+
+    /** Marks the inclusive range start-end as present in the file without passing its data */
+    public synchronized void written(long start, final long end) throws IOException {
+        if (end < position) { return; }
+        final Map.Entry<Long, Piece> before = pieces.floorEntry(start);
+        if (null != before && null == before.getValue().data && before.getValue().end == start - 1) {
+            pieces.remove(before.getKey());
+            start = before.getKey();
+        }
+        pieces.put(start, new Piece(end, null));
+        drain();
+    }
+
+    /** Starts over, used if the file is going to be rewritten from the beginning */
+    public synchronized void reset() {
+        digest.reset();
+        pieces.clear();
+        position = 0;
+        buffered = 0;
+    }
+
+    /** Digests everything up to the given length, reading what is missing from the file */
+    public synchronized byte[] finish(final long length) throws IOException {
+        drain();
+        if (position < length) { read(position, length - 1); }
+        return digest.digest();
+    }
+
+
+    private void drain() throws IOException {
+        Map.Entry<Long, Piece> first;
+        while (null != (first = pieces.firstEntry()) && first.getKey() <= position) {
+            pieces.remove(first.getKey());
+            final long  start = first.getKey();
+            final Piece piece = first.getValue();
+            if (null != piece.data) { buffered -= piece.data.length; }
+            if (piece.end < position) { continue; }
+            if (null == piece.data) {
+                read(position, piece.end);
+            } else {
+                final int skip = (int) (position - start);
+                digest.update(piece.data, skip, piece.data.length - skip);
+                position = piece.end + 1;
+            }
+        }
+    }
+
+    private void read(final long start, final long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long offset = start;
+        while (offset <= end) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - offset + 1));
+            final int read = channel.read(buffer, offset);
+            if (read < 0) { throw new IOException("Unexpected end of file at " + offset); }
+            buffer.flip();
+            digest.update(buffer);
+            offset += read;
+        }
+        position = end + 1;
+    }
+
+
+    private static class Piece {
+        private final long   end;
+        private final byte[] data;
+
+
+        Piece(final long end, final byte[] data) {
+            this.end  = end;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.foojay.discoeclipse.download;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.FrameworkUtil;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.pkg.HashAlgorithm;
+import io.foojay.discoeclipse.Constants;
+
+
+/**
+ * Persistent list of the downloads that have been started but did not finish, so they
+ * can be resumed after a restart.
+ */
+public class PendingDownloads {
+    private static final String FIELD_URI    = "uri";
+    private static final String FIELD_TARGET = "target";
+    private static final String FIELD_HASH   = "hash";
+    private static final String FIELD_VALUE  = "value";
+    private static       PendingDownloads defaultPendingDownloads;
+
+    private final Path                       file;
+    private final Map<Path, PendingDownload> downloads;
+
+
+    public PendingDownloads(final Path file) {
+        this.file      = file;
+        this.downloads = new LinkedHashMap<>();
+        read();
+    }
+
+
+    public static synchronized PendingDownloads getDefault() {
+        if (null == defaultPendingDownloads) {
+            Path stateLocation = Platform.getStateLocation(FrameworkUtil.getBundle(PendingDownloads.class)).toFile().toPath();
+            defaultPendingDownloads = new PendingDownloads(stateLocation.resolve("downloads.json"));
+        }
+        return defaultPendingDownloads;
+    }
+
+
+    public synchronized List<PendingDownload> getAll() { return new ArrayList<>(downloads.values()); }
+
+    public synchronized void add(final URI uri, final Path target, final Checksum checksum) {
+        downloads.put(target, new PendingDownload(uri, target, checksum));
+        write();
+    }
+
+    public synchronized void remove(final Path target) {
+        if (null != downloads.remove(target)) { write(); }
+    }
+
+
+    private void read() {
+        if (!Files.exists(file)) { return; }
+        try {
+            for (JsonElement element : JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonArray()) {
+                JsonObject json   = element.getAsJsonObject();
+                Path       target   = Path.of(json.get(FIELD_TARGET).getAsString());
+                Checksum   checksum = json.has(FIELD_HASH) ? new Checksum(HashAlgorithm.fromText(json.get(FIELD_HASH).getAsString()), json.get(FIELD_VALUE).getAsString()) : null;
+                downloads.put(target, new PendingDownload(URI.create(json.get(FIELD_URI).getAsString()), target, checksum));
+            }
+        } catch (IOException | JsonParseException | IllegalStateException | IllegalArgumentException e) {
+            log("Ignoring unreadable list of pending downloads", e);
+        }
+    }
+
+    private void write() {
+        JsonArray array = new JsonArray();
+        downloads.values().forEach(download -> {
+            JsonObject json = new JsonObject();
+            json.addProperty(FIELD_URI, download.getUri().toString());
+            json.addProperty(FIELD_TARGET, download.getTarget().toString());
+            if (null != download.getChecksum()) {
+                json.addProperty(FIELD_HASH, download.getChecksum().getAlgorithm().getApiString());
+                json.addProperty(FIELD_VALUE, download.getChecksum().getValue());
+            }
+            array.add(json);
+        });
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.writeString(temp, array.toString(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log("Could not write list of pending downloads", e);
+        }
+    }
+
+    private static void log(final String message, final Throwable throwable) {
+        Platform.getLog(PendingDownloads.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, message, throwable));
+    }
+
+
+    public static class PendingDownload {
+        private final URI      uri;
+        private final Path     target;
+        private final Checksum checksum;
+
+
+        public PendingDownload(final URI uri, final Path target, final Checksum checksum) {
+            this.uri      = uri;
+            this.target   = target;
+            this.checksum = checksum;
+        }
+
+
+        public URI getUri() { return uri; }
+
+        public Path getTarget() { return target; }
+
+        public Checksum getChecksum() { return checksum; }
+    }
+}
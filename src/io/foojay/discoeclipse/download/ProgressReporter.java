@@ -0,0 +1,91 @@
+package io.foojay.discoeclipse.download;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Collects the progress of a download with a single atomic counter so that transfer
+ * threads never wait for the UI. The UI samples it at its own frame rate, every sample
+ * updates the smoothed throughput the remaining time is estimated from.
+ */
+public class ProgressReporter implements DownloadListener {
+    private static final double   SMOOTHING = 0.3;
+    private static final String[] UNITS     = { "B", "KB", "MB", "GB", "TB" };
+
+    private final AtomicLong transferred;
+    private volatile long    length;
+    private long             sampleTime;
+    private long             sampleBytes;
+    private double           bytesPerSecond;
+
+
+    public ProgressReporter() {
+        this.transferred    = new AtomicLong();
+        this.length         = -1;
+        this.sampleTime     = System.nanoTime();
+        this.sampleBytes    = 0;
+        this.bytesPerSecond = 0;
+    }
+
+
+    @Override public void started(final long contentLength) { length = contentLength; }
+
+    @Override public void transferred(final long bytes) { transferred.addAndGet(bytes); }
+
+
+    public long getTransferred() { return transferred.get(); }
+
+    /** Returns the size of the download or -1 if the server did not send it */
+    public long getLength() { return length; }
+
+    /** Updates the throughput, meant to be called at a fixed rate */
+    public synchronized void sample() {
+        final long now     = System.nanoTime();
+        final long bytes   = transferred.get();
+        final long elapsed = now - sampleTime;
+        if (elapsed <= 0) { return; }
+        final double rate = Math.max(0, bytes - sampleBytes) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        bytesPerSecond = sampleBytes == 0 && bytesPerSecond == 0 ? rate : SMOOTHING * rate + (1 - SMOOTHING) * bytesPerSecond;
+        sampleTime     = now;
+        sampleBytes    = bytes;
+    }
+
+    public synchronized double getBytesPerSecond() { return bytesPerSecond; }
+
+    /** Returns the progress in per mille or -1 if the size is unknown */
+    public int getPermille() {
+        final long total = length;
+        return total <= 0 ? -1 : (int) Math.min(1000, transferred.get() * 1000 / total);
+    }
+
+    /** Returns the estimated remaining seconds or -1 if they cannot be estimated */
+    public long getSecondsRemaining() {
+        final long   total = length;
+        final double rate  = getBytesPerSecond();
+        if (total <= 0 || rate < 1) { return -1; }
+        return (long) Math.ceil(Math.max(0, total - transferred.get()) / rate);
+    }
+
+    /** Describes the progress like "12.3 MB of 300.0 MB, 4.5 MB/s, 1:04 left" */
+    public String format() {
+        final StringBuilder text      = new StringBuilder(formatBytes(getTransferred()));
+        final long          total     = length;
+        final long          remaining = getSecondsRemaining();
+        if (total > 0) { text.append(" of ").append(formatBytes(total)); }
+        text.append(", ").append(formatBytes((long) getBytesPerSecond())).append("/s");
+        if (remaining >= 0) { text.append(String.format(Locale.ROOT, ", %d:%02d left", remaining / 60, remaining % 60)); }
+        return text.toString();
+    }
+
+    public static String formatBytes(final long bytes) {
+        double value = bytes;
+        int    unit  = 0;
+        while (value >= 1024 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return 0 == unit ? bytes + " B" : String.format(Locale.ROOT, "%.1f %s", value, UNITS[unit]);
+    }
+}
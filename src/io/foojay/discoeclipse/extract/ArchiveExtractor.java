@@ -0,0 +1,295 @@
+package io.foojay.discoeclipse.extract;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import io.foojay.api.discoclient.pkg.ArchiveType;
+
+
+/**
+ * Extracts tar, tar.gz and zip archives while they are read from a stream, so an archive
+ * never has to be stored before it is unpacked. Tar entries keep their permissions,
+ * modification time, symbolic and hard links. Zip streams do not carry unix attributes,
+ * files in bin directories are made executable instead.
+ */
+public class ArchiveExtractor {
+    private static final int                   BLOCK_SIZE  = 512;
+    private static final int                   BUFFER_SIZE = 64 * 1024;
+    private static final PosixFilePermission[] PERMISSIONS = {
+        PosixFilePermission.OTHERS_EXECUTE, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ,
+        PosixFilePermission.GROUP_EXECUTE,  PosixFilePermission.GROUP_WRITE,  PosixFilePermission.GROUP_READ,
+        PosixFilePermission.OWNER_EXECUTE,  PosixFilePermission.OWNER_WRITE,  PosixFilePermission.OWNER_READ
+    };
+    private static final Set<String>           EXECUTABLES = Set.of("jspawnhelper", "jexec");
+
+    private final Path    directory;
+    private final Path    realDirectory;
+    private final boolean posix;
+
+
+    private ArchiveExtractor(final Path directory) throws IOException {
+        this.directory     = directory.toAbsolutePath().normalize();
+        this.realDirectory = directory.toRealPath();
+        this.posix         = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+
+    public static boolean isSupported(final ArchiveType archiveType) {
+        return ArchiveType.TAR_GZ == archiveType || ArchiveType.TAR == archiveType || ArchiveType.ZIP == archiveType;
+    }
+
+    /**
+     * Extracts the archive of the given type from the stream into the existing directory.
+     * The stream is read up to the end of the archive but not closed.
+     */
+    public static void extract(final InputStream in, final ArchiveType archiveType, final Path directory) throws IOException {
+        final ArchiveExtractor extractor = new ArchiveExtractor(directory);
+        switch (archiveType) {
+            case TAR_GZ: extractor.extractTar(new GZIPInputStream(in, BUFFER_SIZE)); break;
+            case TAR   : extractor.extractTar(in); break;
+            case ZIP   : extractor.extractZip(new ZipInputStream(in)); break;
+            default    : throw new IOException("Unsupported archive type " + archiveType.getUiString());
+        }
+    }
+
+    /** Returns the file name without the archive extension */
+    public static String getBaseName(final String filename) {
+        for (String extension : List.of(".tar.gz", ".tgz", ".tar", ".zip")) {
+            if (filename.endsWith(extension)) { return filename.substring(0, filename.length() - extension.length()); }
+        }
+        return filename;
+    }
+
+    /** Deletes the given file or directory tree without following symbolic links */
+    public static void delete(final Path path) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) { return; }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) { Files.delete(p); }
+        }
+    }
+
+
+    private void extractTar(final InputStream in) throws IOException {
+        final byte[]             header      = new byte[BLOCK_SIZE];
+        final Map<Path, Integer> directories = new HashMap<>();
+        String                   longName    = null;
+        String                   longLink    = null;
+        Map<String, String>      pax         = Map.of();
+
+        while (readBlock(in, header) && !isZero(header)) {
+            final char type = (char) header[156];
+            long       size = pax.containsKey("size") ? Long.parseLong(pax.get("size")) : parseNumber(header, 124, 12);
+            switch (type) {
+                case 'L': longName = readString(in, size); continue;
+                case 'K': longLink = readString(in, size); continue;
+                case 'x': pax      = parsePax(readString(in, size)); continue;
+                case 'g': skip(in, padded(size)); continue;
+                default : break;
+            }
+            final String name = null != longName ? longName : pax.getOrDefault("path", getName(header));
+            final String link = null != longLink ? longLink : pax.getOrDefault("linkpath", getString(header, 157, 100));
+            final int    mode = (int) parseNumber(header, 100, 8);
+            final long   time = pax.containsKey("mtime") ? (long) Double.parseDouble(pax.get("mtime")) : parseNumber(header, 136, 12);
+            longName = null;
+            longLink = null;
+            pax      = Map.of();
+
+            final Path path = resolve(name);
+            switch (type) {
+                case '5':
+                    Files.createDirectories(path);
+                    directories.put(path, mode);
+                    break;
+                case '2':
+                    prepare(path);
+                    try {
+                        Files.createSymbolicLink(path, path.getFileSystem().getPath(link));
+                    } catch (UnsupportedOperationException e) {
+                        // file system without symbolic links, the link target is part of the archive anyway
+                    }
+                    break;
+                case '1':
+                    prepare(path);
+                    Files.createLink(path, resolve(link));
+                    break;
+                case '0':
+                case '7':
+                case '\0':
+                    prepare(path);
+                    try (OutputStream out = Files.newOutputStream(path)) { copy(in, out, size); }
+                    setAttributes(path, mode, time);
+                    skip(in, padded(size) - size);
+                    continue;
+                default:
+                    break;
+            }
+            skip(in, padded(size));
+        }
+        // directories might be read only, so their permissions are set after their content
+        directories.entrySet().stream()
+                   .sorted(Map.Entry.<Path, Integer>comparingByKey().reversed())
+                   .forEach(entry -> setPermissions(entry.getKey(), entry.getValue()));
+        drain(in);
+    }
+
+    private void extractZip(final ZipInputStream in) throws IOException {
+        ZipEntry entry;
+        while (null != (entry = in.getNextEntry())) {
+            final Path path = resolve(entry.getName());
+            if (entry.isDirectory()) {
+                Files.createDirectories(path);
+                continue;
+            }
+            prepare(path);
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            final boolean executable = EXECUTABLES.contains(path.getFileName().toString()) || (null != path.getParent() && path.getParent().endsWith("bin"));
+            setAttributes(path, executable ? 0755 : 0644, null == entry.getLastModifiedTime() ? -1 : entry.getLastModifiedTime().toMillis() / 1000);
+        }
+        drain(in);
+    }
+
+
+    private Path resolve(final String name) throws IOException {
+        final Path path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory)) { throw new IOException("Archive entry " + name + " points outside of " + directory); }
+        return path;
+    }
+
+    /** Creates the parent directories of the given entry and makes sure no link redirects it outside the target directory */
+    private void prepare(final Path path) throws IOException {
+        final Path parent = path.getParent();
+        Files.createDirectories(parent);
+        if (!parent.toRealPath().startsWith(realDirectory)) { throw new IOException("Archive entry " + path + " points outside of " + directory); }
+        Files.deleteIfExists(path);
+    }
+
+    private void setAttributes(final Path path, final int mode, final long time) throws IOException {
+        if (time >= 0) { Files.setLastModifiedTime(path, FileTime.fromMillis(time * 1000)); }
+        setPermissions(path, mode);
+    }
+
+    private void setPermissions(final Path path, final int mode) {
+        if (!posix) { return; }
+        final Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (int bit = 0 ; bit < PERMISSIONS.length ; bit++) {
+            if ((mode & (1 << bit)) != 0) { permissions.add(PERMISSIONS[bit]); }
+        }
+        try {
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (IOException e) {
+            // keep the default permissions
+        }
+    }
+
+
+    private static String getName(final byte[] header) {
+        final String name = getString(header, 0, 100);
+        if (!"ustar".equals(getString(header, 257, 5))) { return name; }
+        final String prefix = getString(header, 345, 155);
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private static String getString(final byte[] header, final int offset, final int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) { end++; }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /** Numeric fields are octal strings or, for large values, base-256 with the high bit set */
+    private static long parseNumber(final byte[] header, final int offset, final int length) {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = offset + 1 ; i < offset + length ; i++) { value = (value << 8) | (header[i] & 0xFF); }
+            return value;
+        }
+        final String octal = getString(header, offset, length).trim();
+        return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+    }
+
+    /** Pax records have the form "length key=value\n" where length counts the whole record in bytes */
+    private static Map<String, String> parsePax(final String headers) {
+        final Map<String, String> values = new HashMap<>();
+        final byte[]              bytes  = headers.getBytes(StandardCharsets.UTF_8);
+        int offset = 0;
+        while (offset < bytes.length) {
+            int space = offset;
+            while (space < bytes.length && bytes[space] != ' ') { space++; }
+            if (space == bytes.length) { break; }
+            final int    length = Integer.parseInt(new String(bytes, offset, space - offset, StandardCharsets.UTF_8));
+            final String record = new String(bytes, space + 1, length - (space - offset) - 2, StandardCharsets.UTF_8);
+            final int    equals = record.indexOf('=');
+            if (equals > 0) { values.put(record.substring(0, equals), record.substring(equals + 1)); }
+            offset += length;
+        }
+        return values;
+    }
+
+    private static String readString(final InputStream in, final long size) throws IOException {
+        final byte[] bytes = in.readNBytes((int) size);
+        if (bytes.length < size) { throw new EOFException("Truncated archive"); }
+        skip(in, padded(size) - size);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] == 0) { end--; }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static boolean readBlock(final InputStream in, final byte[] block) throws IOException {
+        final int read = in.readNBytes(block, 0, block.length);
+        if (0 == read) { return false; }
+        if (read < block.length) { throw new EOFException("Truncated archive"); }
+        return true;
+    }
+
+    private static boolean isZero(final byte[] block) {
+        for (byte b : block) {
+            if (b != 0) { return false; }
+        }
+        return true;
+    }
+
+    private static long padded(final long size) { return (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE; }
+
+    private static void copy(final InputStream in, final OutputStream out, long size) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        while (size > 0) {
+            final int read = in.read(buffer, 0, (int) Math.min(buffer.length, size));
+            if (read < 0) { throw new EOFException("Truncated archive"); }
+            out.write(buffer, 0, read);
+            size -= read;
+        }
+    }
+
+    private static void skip(final InputStream in, long size) throws IOException {
+        final byte[] buffer = new byte[BLOCK_SIZE];
+        while (size > 0) {
+            final int read = in.read(buffer, 0, (int) Math.min(buffer.length, size));
+            if (read < 0) { throw new EOFException("Truncated archive"); }
+            size -= read;
+        }
+    }
+
+    /** Reads the trailing bytes after the last entry so that the whole archive passes any digest in the stream */
+    private static void drain(final InputStream in) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        while (in.read(buffer) >= 0) { }
+    }
+}
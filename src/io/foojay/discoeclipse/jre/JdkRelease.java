@@ -0,0 +1,77 @@
+package io.foojay.discoeclipse.jre;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * The release file of an installed JDK. It names the version and vendor of the JDK, so
+ * nothing has to be learned by launching it.
+ */
+public class JdkRelease {
+    public  static final String RELEASE_FILE      = "release";
+    public  static final String JAVA_VERSION      = "JAVA_VERSION";
+    public  static final String IMPLEMENTOR       = "IMPLEMENTOR";
+    public  static final String MODULES           = "MODULES";
+    private static final List<String> HOME_FOLDERS = List.of("", "Contents/Home", "Home");
+
+    private final Path       home;
+    private final Properties properties;
+
+
+    public JdkRelease(final Path home, final Properties properties) {
+        this.home       = home;
+        this.properties = properties;
+    }
+
+
+    /** Reads the release file of the JDK in the given directory, which may also be a macOS bundle */
+    public static JdkRelease read(final Path directory) throws IOException {
+        for (String folder : HOME_FOLDERS) {
+            final Path home = folder.isEmpty() ? directory : directory.resolve(folder);
+            final Path file = home.resolve(RELEASE_FILE);
+            if (!Files.isRegularFile(file)) { continue; }
+            final Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            return new JdkRelease(home, properties);
+        }
+        throw new IOException("No JDK found in " + directory);
+    }
+
+
+    public Path getHome() { return home; }
+
+    /** Returns the value of the given key without the quotes of the release file, null if missing */
+    public String get(final String key) {
+        final String value = properties.getProperty(key);
+        if (null == value) { return null; }
+        final String trimmed = value.trim();
+        return trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"") ? trimmed.substring(1, trimmed.length() - 1) : trimmed;
+    }
+
+    public String getJavaVersion() { return get(JAVA_VERSION); }
+
+    public String getImplementor() { return get(IMPLEMENTOR); }
+
+    /** JDKs since 9 keep their classes in modules that are read through lib/jrt-fs.jar */
+    public boolean isModular() { return null != get(MODULES) || Files.isRegularFile(home.resolve("lib").resolve("jrt-fs.jar")); }
+
+    public Path getJavaExecutable() {
+        final Path bin = home.resolve("bin");
+        return Files.exists(bin.resolve("java.exe")) ? bin.resolve("java.exe") : bin.resolve("java");
+    }
+
+    /** Returns a name like "Eclipse Adoptium 21.0.2" */
+    public String getName() {
+        final String implementor = getImplementor();
+        final String version     = null == getJavaVersion() ? home.getFileName().toString() : getJavaVersion();
+        return null == implementor || implementor.isBlank() ? "JDK " + version : implementor + " " + version;
+    }
+}
@@ -0,0 +1,98 @@
+package io.foojay.discoeclipse.jre;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.launching.IVMInstall;
+import org.eclipse.jdt.launching.IVMInstallType;
+import org.eclipse.jdt.launching.JavaRuntime;
+import org.eclipse.jdt.launching.LibraryLocation;
+import org.eclipse.jdt.launching.VMStandin;
+
+
+/**
+ * The part of the registration that uses JDT, only loaded if org.eclipse.jdt.launching is
+ * installed.
+ */
+final class JdtRegistration {
+    private static final String       STANDARD_VM_TYPE = "org.eclipse.jdt.internal.debug.ui.launcher.StandardVMType";
+    // sun.boot.class.path of Java 8 in its order, the jars a JDK or JRE lacks are skipped
+    private static final List<String> BOOT_JARS        = List.of("resources.jar", "rt.jar", "sunrsasign.jar", "jsse.jar", "jce.jar", "charsets.jar", "jfr.jar");
+
+
+    private JdtRegistration() {}
+
+
+    static String register(final JdkRelease release) throws CoreException {
+        final IVMInstallType type = JavaRuntime.getVMInstallType(STANDARD_VM_TYPE);
+        if (null == type) { return null; }
+
+        // the id is derived from the location, so registering the same JDK again updates it
+        final String     id       = UUID.nameUUIDFromBytes(release.getHome().toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8)).toString();
+        final IVMInstall existing = type.findVMInstall(id);
+        final VMStandin  standin  = null == existing ? new VMStandin(type, id) : new VMStandin(existing);
+        final String     name     = null == existing ? getUniqueName(type, release.getName()) : existing.getName();
+        standin.setName(name);
+        standin.setInstallLocation(release.getHome().toFile());
+        // JDT only detects the libraries itself if none are given
+        standin.setLibraryLocations(release.isModular() ? getModularLibraryLocations(release.getHome()) : getLibraryLocations(release.getHome()));
+        standin.convertToRealVM();
+        JavaRuntime.saveVMConfiguration();
+        return name;
+    }
+
+
+    private static LibraryLocation[] getModularLibraryLocations(final Path home) {
+        final Path source = home.resolve("lib").resolve("src.zip");
+        return new LibraryLocation[] { getLibraryLocation(home.resolve("lib").resolve("jrt-fs.jar"), Files.isRegularFile(source) ? source : null) };
+    }
+
+    /**
+     * Returns the boot and extension jars of a Java 8 or older JDK or JRE, the jars the
+     * LibraryDetector of JDT would report. Returns null for unknown layouts.
+     */
+    private static LibraryLocation[] getLibraryLocations(final Path home) {
+        final Path jre    = Files.isDirectory(home.resolve("jre").resolve("lib")) ? home.resolve("jre") : home;
+        final Path lib    = jre.resolve("lib");
+        final Path source = home.resolve("src.zip");
+        if (!Files.isRegularFile(lib.resolve("rt.jar"))) { return null; }
+
+        final List<LibraryLocation> locations = new ArrayList<>();
+        for (String name : BOOT_JARS) {
+            final Path jar = lib.resolve(name);
+            if (Files.isRegularFile(jar)) { locations.add(getLibraryLocation(jar, Files.isRegularFile(source) ? source : null)); }
+        }
+        final Path ext = lib.resolve("ext");
+        if (Files.isDirectory(ext)) {
+            try (Stream<Path> files = Files.list(ext)) {
+                files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                     .sorted()
+                     .collect(Collectors.toList())
+                     .forEach(jar -> locations.add(getLibraryLocation(jar, null)));
+            } catch (IOException e) {
+                // the boot jars are enough to compile against
+            }
+        }
+        return locations.toArray(new LibraryLocation[0]);
+    }
+
+    private static LibraryLocation getLibraryLocation(final Path jar, final Path source) {
+        return new LibraryLocation(org.eclipse.core.runtime.Path.fromOSString(jar.toString()),
+                                   null == source ? org.eclipse.core.runtime.Path.EMPTY : org.eclipse.core.runtime.Path.fromOSString(source.toString()),
+                                   org.eclipse.core.runtime.Path.EMPTY);
+    }
+
+    private static String getUniqueName(final IVMInstallType type, final String name) {
+        String unique = name;
+        for (int i = 2 ; null != type.findVMInstallByName(unique) ; i++) { unique = name + " (" + i + ")"; }
+        return unique;
+    }
+}
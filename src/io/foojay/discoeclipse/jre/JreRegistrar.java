@@ -0,0 +1,41 @@
+package io.foojay.discoeclipse.jre;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Platform;
+
+
+/**
+ * Adds extracted JDKs to the Installed JREs of Eclipse. The name is read from the release
+ * file and the library locations are set up front for modular and Java 8 layouts. JDT
+ * still launches a Java 8 or older JDK once to learn its version, later releases are
+ * recognized from their release file.
+ * Registration needs the optional org.eclipse.jdt.launching bundle.
+ */
+public class JreRegistrar {
+    private static final String JDT_LAUNCHING = "org.eclipse.jdt.launching";
+
+
+    private JreRegistrar() {}
+
+
+    public static boolean isAvailable() { return null != Platform.getBundle(JDT_LAUNCHING); }
+
+    /**
+     * Registers the JDK extracted into the given directory and returns the name it is listed
+     * with, null if JDT is not installed. Registering a JDK again keeps its entry.
+     */
+    public static String register(final Path directory) throws IOException {
+        final JdkRelease release = JdkRelease.read(directory);
+        if (!Files.isRegularFile(release.getJavaExecutable())) { throw new IOException("No java executable in " + release.getHome()); }
+        if (!isAvailable()) { return null; }
+        try {
+            return JdtRegistration.register(release);
+        } catch (CoreException e) {
+            throw new IOException("Could not add " + release.getName() + " to the Installed JREs", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.foojay.discoeclipse.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder events of the plugin, they cost nothing unless a recording is running.
+ * The event classes are only touched if jdk.jfr is available, on runtimes without it the
+ * methods return null and ignore the null events they get.
+ */
+final class FlightRecorderEvents {
+    private static final String  CATEGORY  = "DiscoEclipse";
+    private static final boolean AVAILABLE = isAvailable();
+
+
+    private FlightRecorderEvents() {}
+
+
+    static Object beginApiCall(final String call) {
+        if (!AVAILABLE) { return null; }
+        final ApiCallEvent event = new ApiCallEvent();
+        event.operation = call;
+        event.begin();
+        return event;
+    }
+
+    static Object beginDialog() {
+        if (!AVAILABLE) { return null; }
+        final DialogPopulatedEvent event = new DialogPopulatedEvent();
+        event.begin();
+        return event;
+    }
+
+    static Object beginDownload(final String name) {
+        if (!AVAILABLE) { return null; }
+        final DownloadEvent event = new DownloadEvent();
+        event.operation = name;
+        event.begin();
+        return event;
+    }
+
+    static void end(final Object event, final long amount, final boolean failed) {
+        if (!AVAILABLE || null == event) { return; }
+        final TimedEvent timed = (TimedEvent) event;
+        timed.failed = failed;
+        if (timed instanceof DownloadEvent) { ((DownloadEvent) timed).bytes = amount; }
+        timed.commit();
+    }
+
+    static void cacheLookup(final String key, final String result) {
+        if (!AVAILABLE) { return; }
+        final CacheLookupEvent event = new CacheLookupEvent();
+        if (!event.isEnabled()) { return; }
+        event.key    = key;
+        event.result = result;
+        event.commit();
+    }
+
+    static void retry(final String uri, final int attempt, final Throwable cause) {
+        if (!AVAILABLE) { return; }
+        final DownloadRetryEvent event = new DownloadRetryEvent();
+        if (!event.isEnabled()) { return; }
+        event.uri     = uri;
+        event.attempt = attempt;
+        event.cause   = cause.toString();
+        event.commit();
+    }
+
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+
+    @Category(CATEGORY)
+    abstract static class TimedEvent extends Event {
+        @Label("Operation") String  operation;
+        @Label("Failed")    boolean failed;
+    }
+
+    @Name("io.foojay.discoeclipse.ApiCall")
+    @Label("Disco API Call")
+    @Description("Request to the Disco API that was not answered from the catalog cache")
+    static class ApiCallEvent extends TimedEvent {}
+
+    @Name("io.foojay.discoeclipse.DialogPopulated")
+    @Label("JDK Dialog Populated")
+    @Description("Time from opening the JDK dialog until a package is selected")
+    static class DialogPopulatedEvent extends TimedEvent {}
+
+    @Name("io.foojay.discoeclipse.Download")
+    @Label("Download")
+    static class DownloadEvent extends TimedEvent {
+        @Label("Bytes") @DataAmount long bytes;
+    }
+
+    @Name("io.foojay.discoeclipse.CacheLookup")
+    @Label("Catalog Cache Lookup")
+    @Category(CATEGORY)
+    static class CacheLookupEvent extends Event {
+        @Label("Key")    String key;
+        @Label("Result") String result;
+    }
+
+    @Name("io.foojay.discoeclipse.DownloadRetry")
+    @Label("Download Retry")
+    @Category(CATEGORY)
+    static class DownloadRetryEvent extends Event {
+        @Label("URI")     String uri;
+        @Label("Attempt") int    attempt;
+        @Label("Cause")   String cause;
+    }
+}
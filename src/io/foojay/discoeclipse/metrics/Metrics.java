@@ -0,0 +1,102 @@
+package io.foojay.discoeclipse.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Registry for the timers and counters of the plugin. Disco API calls, the time the JDK
+ * dialog needs until it shows a package, catalog cache lookups and downloads are recorded
+ * here and as flight recorder events, so slow installations can be analyzed with a dump
+ * of the registry or a JFR recording.
+ */
+public class Metrics {
+    public  static final String API_PREFIX           = "api.";
+    public  static final String DIALOG_POPULATED     = "dialog.populated";
+    public  static final String DOWNLOADS            = "download";
+    public  static final String DOWNLOAD_RETRIES     = "download.retries";
+    public  static final String CATALOG_CACHE_HITS   = "catalog.cache.hits";
+    public  static final String CATALOG_CACHE_STALE  = "catalog.cache.stale";
+    public  static final String CATALOG_CACHE_MISSES = "catalog.cache.misses";
+    private static       Metrics defaultMetrics;
+
+    private final ConcurrentMap<String, Timer>     timers;
+    private final ConcurrentMap<String, LongAdder> counters;
+
+
+    public Metrics() {
+        this.timers   = new ConcurrentHashMap<>();
+        this.counters = new ConcurrentHashMap<>();
+    }
+
+
+    public static synchronized Metrics getDefault() {
+        if (null == defaultMetrics) { defaultMetrics = new Metrics(); }
+        return defaultMetrics;
+    }
+
+
+    public Timer getTimer(final String name) { return timers.computeIfAbsent(name, n -> new Timer()); }
+
+    public long getCount(final String name) {
+        final LongAdder counter = counters.get(name);
+        return null == counter ? 0 : counter.sum();
+    }
+
+    public void increment(final String name) { counters.computeIfAbsent(name, n -> new LongAdder()).increment(); }
+
+    /** Starts timing a request to the Disco API, the call is the name of the client method */
+    public Sample startApiCall(final String call) { return new Sample(getTimer(API_PREFIX + call), FlightRecorderEvents.beginApiCall(call)); }
+
+    /** Times the given asynchronous Disco API call until its future completes */
+    public <T> CompletableFuture<T> timeApiCall(final String call, final CompletableFuture<T> future) {
+        final Sample sample = startApiCall(call);
+        future.whenComplete((result, throwable) -> sample.stop(null != throwable));
+        return future;
+    }
+
+    public Sample startDialog() { return new Sample(getTimer(DIALOG_POPULATED), FlightRecorderEvents.beginDialog()); }
+
+    /** Starts timing a download, stop the sample with the number of transferred bytes */
+    public Sample startDownload(final String name) { return new Sample(getTimer(DOWNLOADS), FlightRecorderEvents.beginDownload(name)); }
+
+    public void recordCacheLookup(final String key, final boolean hit, final boolean stale) {
+        final String name = hit ? (stale ? CATALOG_CACHE_STALE : CATALOG_CACHE_HITS) : CATALOG_CACHE_MISSES;
+        increment(name);
+        FlightRecorderEvents.cacheLookup(key, name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    public void recordRetry(final URI uri, final int attempt, final IOException cause) {
+        increment(DOWNLOAD_RETRIES);
+        FlightRecorderEvents.retry(uri.toString(), attempt, cause);
+    }
+
+    public void reset() {
+        timers.values().forEach(Timer::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    /** Writes all timers and counters in a line based text format, sorted by name */
+    public void dump(final Appendable out) throws IOException {
+        out.append("# DiscoEclipse metrics ").append(Instant.now().toString()).append('\n');
+        for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet()) {
+            final Timer timer = entry.getValue();
+            final long  count = timer.getCount();
+            out.append(String.format(Locale.ROOT, "%-40s count=%d failed=%d mean=%.1fms max=%.1fms", entry.getKey(), count, timer.getFailures(),
+                                     count == 0 ? 0.0 : timer.getTotalNanos() / 1e6 / count, timer.getMaxNanos() / 1e6));
+            if (timer.getAmount() > 0) { out.append(String.format(Locale.ROOT, " amount=%d throughput=%.0f/s", timer.getAmount(), timer.getThroughput())); }
+            out.append('\n');
+        }
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-40s %d", entry.getKey(), entry.getValue().sum())).append('\n');
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.foojay.discoeclipse.metrics;
+
+
+/**
+ * One running operation. Stopping it records its duration at its timer and commits the
+ * matching flight recorder event. Only the first stop counts.
+ */
+public class Sample {
+    private final Timer  timer;
+    private final long   start;
+    private final Object event;
+    private boolean      stopped;
+
+
+    Sample(final Timer timer, final Object event) {
+        this.timer = timer;
+        this.start = System.nanoTime();
+        this.event = event;
+    }
+
+
+    public void stop(final boolean failed) { stop(0, failed); }
+
+    /** Stops the operation that moved the given amount, e.g. the bytes of a download */
+    public synchronized void stop(final long amount, final boolean failed) {
+        if (stopped) { return; }
+        stopped = true;
+        timer.record(System.nanoTime() - start, amount, failed);
+        FlightRecorderEvents.end(event, amount, failed);
+    }
+}
@@ -0,0 +1,59 @@
+package io.foojay.discoeclipse.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counts the recorded operations with their total and maximum duration. Operations that
+ * move data, i.e. downloads, also add up their amount so the throughput can be derived.
+ */
+public class Timer {
+    private final LongAdder  count;
+    private final LongAdder  failures;
+    private final LongAdder  totalNanos;
+    private final LongAdder  amount;
+    private final AtomicLong maxNanos;
+
+
+    Timer() {
+        this.count      = new LongAdder();
+        this.failures   = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.amount     = new LongAdder();
+        this.maxNanos   = new AtomicLong();
+    }
+
+
+    public void record(final long nanos, final long amount, final boolean failed) {
+        count.increment();
+        if (failed) { failures.increment(); }
+        totalNanos.add(nanos);
+        if (amount > 0) { this.amount.add(amount); }
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() { return count.sum(); }
+
+    public long getFailures() { return failures.sum(); }
+
+    public long getTotalNanos() { return totalNanos.sum(); }
+
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    public long getAmount() { return amount.sum(); }
+
+    /** Returns the amount per second over all recorded operations, 0 if nothing was moved */
+    public double getThroughput() {
+        final long nanos = getTotalNanos();
+        return nanos <= 0 ? 0 : getAmount() * 1e9 / nanos;
+    }
+
+    void reset() {
+        count.reset();
+        failures.reset();
+        totalNanos.reset();
+        amount.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,74 @@
+package io.foojay.discoeclipse.net;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.net.proxy.IProxyData;
+import org.eclipse.core.net.proxy.IProxyService;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.util.tracker.ServiceTracker;
+
+
+/**
+ * Selects proxies according to the network preferences of Eclipse. Only loaded if the
+ * optional org.eclipse.core.net bundle is installed, the fallback selector is used while
+ * its proxy service is not available.
+ */
+class EclipseProxySelector extends ProxySelector {
+    private final ProxySelector                               fallback;
+    private final ServiceTracker<IProxyService, IProxyService> tracker;
+
+
+    EclipseProxySelector(final ProxySelector fallback) {
+        final Bundle bundle = FrameworkUtil.getBundle(EclipseProxySelector.class);
+        if (null == bundle || null == bundle.getBundleContext()) { throw new IllegalStateException("Bundle not active"); }
+        this.fallback = fallback;
+        this.tracker  = new ServiceTracker<>(bundle.getBundleContext(), IProxyService.class, null);
+        this.tracker.open();
+    }
+
+
+    @Override public List<Proxy> select(final URI uri) {
+        final IProxyService service = tracker.getService();
+        if (null == service) { return null == fallback ? List.of(Proxy.NO_PROXY) : fallback.select(uri); }
+        final List<Proxy> proxies = new ArrayList<>();
+        if (service.isProxiesEnabled()) {
+            for (IProxyData data : service.select(uri)) {
+                if (null == data.getHost()) { continue; }
+                final Proxy.Type type = IProxyData.SOCKS_PROXY_TYPE.equals(data.getType()) ? Proxy.Type.SOCKS : Proxy.Type.HTTP;
+                proxies.add(new Proxy(type, InetSocketAddress.createUnresolved(data.getHost(), data.getPort())));
+            }
+        }
+        if (proxies.isEmpty()) { proxies.add(Proxy.NO_PROXY); }
+        return proxies;
+    }
+
+    @Override public void connectFailed(final URI uri, final SocketAddress address, final IOException e) {
+        if (null != fallback) { fallback.connectFailed(uri, address, e); }
+    }
+
+    /** Answers proxy authentication requests with the credentials stored in the network preferences */
+    Authenticator getAuthenticator() {
+        return new Authenticator() {
+            @Override protected PasswordAuthentication getPasswordAuthentication() {
+                final IProxyService service = tracker.getService();
+                if (RequestorType.PROXY != getRequestorType() || null == service) { return null; }
+                for (IProxyData data : service.select(URI.create(getRequestingURL().toString()))) {
+                    if (data.isRequiresAuthentication() && getRequestingHost().equalsIgnoreCase(data.getHost()) && getRequestingPort() == data.getPort()) {
+                        return new PasswordAuthentication(data.getUserId(), null == data.getPassword() ? new char[0] : data.getPassword().toCharArray());
+                    }
+                }
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,325 @@
+package io.foojay.discoeclipse.net;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.core.runtime.Platform;
+
+import io.foojay.discoeclipse.Constants;
+
+
+/**
+ * Transport on a single java.net.http client that is shared by all requests of the plugin.
+ * The client pools its connections and multiplexes parallel requests to the same host over
+ * one HTTP/2 connection where the server supports it. Proxies are taken from the network
+ * preferences of Eclipse if org.eclipse.core.net is installed and from the system otherwise.
+ * The client only knows a timeout for the response headers, a watchdog closes response
+ * bodies whose reader waited longer than the read timeout for data.
+ */
+public class HttpTransport implements Transport {
+    public  static final Duration         CONNECT_TIMEOUT  = Duration.ofSeconds(30);
+    public  static final Duration         READ_TIMEOUT     = Duration.ofSeconds(60);
+    private static final String           CORE_NET_BUNDLE  = "org.eclipse.core.net";
+    private static final int              MAX_CACHED_TEXTS = 64;
+    private static final long             WATCH_INTERVAL   = 1_000;
+    private static final List<ByteBuffer> LAST             = new ArrayList<>(0);
+    private static       Transport        defaultTransport;
+
+    private final HttpClient                  client;
+    private final Duration                    readTimeout;
+    private final Map<URI, CachedText>        texts;
+    private final Set<IdleTimeoutInputStream> bodies;
+    private ScheduledExecutorService          watchdog;
+
+
+    public HttpTransport(final Duration connectTimeout, final Duration readTimeout, final ProxySelector proxySelector, final Authenticator authenticator) {
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+                                                     .version(HttpClient.Version.HTTP_2)
+                                                     .followRedirects(HttpClient.Redirect.NORMAL)
+                                                     .connectTimeout(connectTimeout)
+                                                     .proxy(null == proxySelector ? HttpClient.Builder.NO_PROXY : proxySelector);
+        if (null != authenticator) { builder.authenticator(authenticator); }
+        this.client      = builder.build();
+        this.readTimeout = readTimeout;
+        this.texts       = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(final Map.Entry<URI, CachedText> eldest) { return size() > MAX_CACHED_TEXTS; }
+        };
+        this.bodies      = ConcurrentHashMap.newKeySet();
+    }
+
+
+    public static synchronized Transport getDefault() {
+        if (null == defaultTransport) {
+            ProxySelector proxySelector = ProxySelector.getDefault();
+            Authenticator authenticator = null;
+            try {
+                if (null != Platform.getBundle(CORE_NET_BUNDLE)) {
+                    final EclipseProxySelector eclipseProxySelector = new EclipseProxySelector(proxySelector);
+                    proxySelector = eclipseProxySelector;
+                    authenticator = eclipseProxySelector.getAuthenticator();
+                }
+            } catch (NoClassDefFoundError | RuntimeException e) {
+                // no Eclipse network settings available, the system settings apply
+            }
+            defaultTransport = new HttpTransport(CONNECT_TIMEOUT, READ_TIMEOUT, proxySelector, authenticator);
+        }
+        return defaultTransport;
+    }
+
+
+    @Override public HttpRequest.Builder newRequest(final URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(readTimeout).header("User-Agent", Constants.USER_AGENT);
+    }
+
+    @Override public HttpResponse<InputStream> send(final HttpRequest request) throws IOException {
+        try {
+            return client.send(request, info -> new BodyInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request to " + request.uri() + " cancelled");
+        }
+    }
+
+    @Override public String getText(final URI uri) throws IOException {
+        final CachedText cached;
+        synchronized (texts) { cached = texts.get(uri); }
+        final HttpRequest.Builder builder = newRequest(uri).header("Accept-Encoding", "gzip");
+        if (null != cached) { builder.header("If-None-Match", cached.etag); }
+
+        final HttpResponse<InputStream> response = send(builder.build());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED && null != cached) { return cached.text; }
+            if (response.statusCode() != HttpURLConnection.HTTP_OK) { return null; }
+            final boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+            final String  text = new String((gzip ? new GZIPInputStream(body) : body).readAllBytes(), StandardCharsets.UTF_8);
+            response.headers().firstValue("ETag").ifPresent(etag -> {
+                synchronized (texts) { texts.put(uri, new CachedText(etag, text)); }
+            });
+            return text;
+        }
+    }
+
+
+    private synchronized InputStream watch(final IdleTimeoutInputStream body) {
+        bodies.add(body);
+        if (null == watchdog) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "DiscoEclipse transport watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watchdog.scheduleWithFixedDelay(this::closeIdleBodies, WATCH_INTERVAL, WATCH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        return body;
+    }
+
+    private void closeIdleBodies() {
+        final long now = System.nanoTime();
+        for (IdleTimeoutInputStream body : bodies) {
+            if (body.isStalled(now)) { body.timeout(); }
+        }
+    }
+
+
+    private static class CachedText {
+        private final String etag;
+        private final String text;
+
+
+        CachedText(final String etag, final String text) {
+            this.etag = etag;
+            this.text = text;
+        }
+    }
+
+
+    /**
+     * Body that is closed by the watchdog once a read waited for data longer than the read
+     * timeout, the blocked reader gets an HttpTimeoutException. Time the caller spends between
+     * reads, e.g. waiting for the bandwidth limit, does not count.
+     */
+    private class IdleTimeoutInputStream extends FilterInputStream {
+        private volatile long    waitingSince;
+        private volatile boolean timedOut;
+
+
+        IdleTimeoutInputStream(final InputStream in) {
+            super(in);
+        }
+
+
+        @Override public int read() throws IOException {
+            waitingSince = System.nanoTime();
+            try {
+                final int b = super.read();
+                if (b < 0) { bodies.remove(this); }
+                return b;
+            } catch (IOException e) {
+                throw timedOut ? timeoutException() : e;
+            } finally {
+                waitingSince = 0;
+            }
+        }
+
+        @Override public int read(final byte[] b, final int off, final int len) throws IOException {
+            waitingSince = System.nanoTime();
+            try {
+                final int read = super.read(b, off, len);
+                if (read < 0) { bodies.remove(this); }
+                return read;
+            } catch (IOException e) {
+                throw timedOut ? timeoutException() : e;
+            } finally {
+                waitingSince = 0;
+            }
+        }
+
+        @Override public void close() throws IOException {
+            bodies.remove(this);
+            super.close();
+        }
+
+        boolean isStalled(final long now) {
+            final long since = waitingSince;
+            return 0 != since && now - since > readTimeout.toNanos();
+        }
+
+        void timeout() {
+            timedOut = true;
+            try {
+                close();
+            } catch (IOException e) {
+                // the reader fails with a timeout anyway
+            }
+        }
+
+        private IOException timeoutException() {
+            return new HttpTimeoutException("No data received for " + readTimeout.toSeconds() + " seconds");
+        }
+    }
+
+
+    /**
+     * Body like the one of BodySubscribers.ofInputStream() but a reader blocked waiting for
+     * data stops when its thread is interrupted. The stream of Java 11 and 17 swallows the
+     * interrupt and keeps waiting, so a cancelled download would run to the end.
+     */
+    private class BodyInputStream extends InputStream implements BodySubscriber<InputStream> {
+        private final BlockingQueue<List<ByteBuffer>> items;
+        private volatile Flow.Subscription            subscription;
+        private volatile Throwable                    failure;
+        private volatile boolean                      closed;
+        private Iterator<ByteBuffer>                  iterator;
+        private ByteBuffer                            buffer;
+        private boolean                               done;
+
+
+        BodyInputStream() {
+            this.items    = new LinkedBlockingQueue<>();
+            this.iterator = Collections.emptyIterator();
+        }
+
+
+        @Override public CompletionStage<InputStream> getBody() { return CompletableFuture.completedStage(watch(new IdleTimeoutInputStream(this))); }
+
+        @Override public void onSubscribe(final Flow.Subscription subscription) {
+            if (null != this.subscription || closed) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override public void onNext(final List<ByteBuffer> item) { items.offer(item); }
+
+        @Override public void onError(final Throwable throwable) {
+            failure = throwable;
+            items.offer(LAST);
+        }
+
+        @Override public void onComplete() { items.offer(LAST); }
+
+        @Override public int read() throws IOException {
+            final ByteBuffer current = current();
+            return null == current ? -1 : current.get() & 0xFF;
+        }
+
+        @Override public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (0 == len) { return 0; }
+            final ByteBuffer current = current();
+            if (null == current) { return -1; }
+            final int read = Math.min(len, current.remaining());
+            current.get(b, off, read);
+            return read;
+        }
+
+        @Override public int available() { return null == buffer ? 0 : buffer.remaining(); }
+
+        @Override public void close() {
+            closed = true;
+            final Flow.Subscription s = subscription;
+            if (null != s) { s.cancel(); }
+            items.clear();
+            // wakes up a reader that waits for data
+            items.offer(LAST);
+        }
+
+        private ByteBuffer current() throws IOException {
+            while (null == buffer || !buffer.hasRemaining()) {
+                if (closed) { throw new IOException("Stream closed"); }
+                if (null != failure) { throw failure instanceof IOException ? new IOException(failure.getMessage(), failure) : new IOException(failure); }
+                if (done) { return null; }
+                if (iterator.hasNext()) {
+                    buffer = iterator.next();
+                    continue;
+                }
+                final List<ByteBuffer> item;
+                try {
+                    item = items.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Read cancelled");
+                }
+                if (LAST == item) {
+                    done = true;
+                } else {
+                    iterator = item.iterator();
+                    subscription.request(1);
+                }
+            }
+            return buffer;
+        }
+    }
+}
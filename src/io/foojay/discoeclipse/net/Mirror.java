@@ -0,0 +1,112 @@
+package io.foojay.discoeclipse.net;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import io.foojay.api.discoclient.PropertyManager;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Constants;
+
+
+/**
+ * Internal stand-in for the Disco API and the vendor download sites, a static directory
+ * that any HTTP server can host:
+ * <pre>
+ * catalog/&lt;cache file&gt;            catalog cache entries as written by the catalog cache
+ * archives/&lt;package id&gt;/&lt;file&gt;   the archives
+ * archives/&lt;package id&gt;/info.json  their checksums in the format of the ephemeral ids endpoint
+ * </pre>
+ * Whatever the mirror does not provide is requested upstream. The Disco API itself can be
+ * replaced as well, e.g. by an internal deployment or a local stub.
+ */
+public class Mirror {
+    public  static final String CATALOG_FOLDER  = "catalog";
+    public  static final String ARCHIVES_FOLDER = "archives";
+    public  static final String INFO_FILE       = "info.json";
+    private static       Mirror defaultMirror;
+
+    private final Transport transport;
+    private volatile URI    base;
+
+
+    public Mirror(final Transport transport, final URI base) {
+        this.transport = transport;
+        setBase(base);
+    }
+
+
+    public static synchronized Mirror getDefault() {
+        if (null == defaultMirror) {
+            IEclipsePreferences preferences = InstanceScope.INSTANCE.getNode(Constants.PLUGIN_ID);
+            defaultMirror = new Mirror(HttpTransport.getDefault(), parse(preferences.get(Constants.PREFERENCE_MIRROR_URI, "")));
+            setDiscoUri(preferences.get(Constants.PREFERENCE_DISCO_URI, ""));
+            preferences.addPreferenceChangeListener(event -> {
+                if (Constants.PREFERENCE_MIRROR_URI.equals(event.getKey())) {
+                    defaultMirror.setBase(parse(preferences.get(Constants.PREFERENCE_MIRROR_URI, "")));
+                } else if (Constants.PREFERENCE_DISCO_URI.equals(event.getKey())) {
+                    setDiscoUri(preferences.get(Constants.PREFERENCE_DISCO_URI, ""));
+                }
+            });
+        }
+        return defaultMirror;
+    }
+
+
+    /** Returns the base uri of the mirror or null if mirror mode is off */
+    public URI getBase() { return base; }
+    public void setBase(final URI base) {
+        if (null != base && !"http".equalsIgnoreCase(base.getScheme()) && !"https".equalsIgnoreCase(base.getScheme())) {
+            log("Ignoring mirror " + base + ", only http and https are supported", null);
+            this.base = null;
+            return;
+        }
+        this.base = null == base || base.getPath().endsWith("/") ? base : URI.create(base + "/");
+    }
+
+    public boolean isEnabled() { return null != base; }
+
+    public URI getCatalogUri(final String fileName) { return resolve(CATALOG_FOLDER + "/" + fileName); }
+
+    public URI getArchiveUri(final Pkg pkg) { return resolve(ARCHIVES_FOLDER + "/" + pkg.getId() + "/" + pkg.getFileName()); }
+
+    public URI getInfoUri(final Pkg pkg) { return resolve(ARCHIVES_FOLDER + "/" + pkg.getId() + "/" + INFO_FILE); }
+
+    /** Returns the text at the given mirror uri or null if the mirror does not have it */
+    public String getText(final URI uri) throws IOException { return transport.getText(uri); }
+
+    /**
+     * Points the Disco API requests to the given base url, an empty url restores the public
+     * API. Only the properties in memory are changed, the discoclient properties file stays.
+     */
+    public static void setDiscoUri(final String uri) {
+        final String url = null == uri || uri.isBlank() ? io.foojay.api.discoclient.util.Constants.DISCO_API_BASE_URL : uri.trim().replaceAll("/+$", "");
+        PropertyManager.INSTANCE.getProperties().setProperty(io.foojay.api.discoclient.util.Constants.PROPERTY_KEY_DISCO_URL, url);
+    }
+
+
+    private URI resolve(final String path) {
+        final URI current = base;
+        if (null == current) { throw new IllegalStateException("Mirror mode is off"); }
+        return current.resolve(path);
+    }
+
+    private static URI parse(final String uri) {
+        if (null == uri || uri.isBlank()) { return null; }
+        try {
+            return URI.create(uri.trim());
+        } catch (IllegalArgumentException e) {
+            log("Ignoring invalid mirror uri " + uri, e);
+            return null;
+        }
+    }
+
+    private static void log(final String message, final Throwable throwable) {
+        Platform.getLog(Mirror.class).log(new Status(IStatus.WARNING, Constants.PLUGIN_ID, message, throwable));
+    }
+}
@@ -0,0 +1,31 @@
+package io.foojay.discoeclipse.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+
+/**
+ * HTTP access of the plugin. Downloads and the plugin's own API requests go through a
+ * transport, so a test can hand the download engine or a mirror one that talks to a local stub server.
+ */
+public interface Transport {
+
+    /** Returns a request builder for the given uri with the default headers and timeout of this transport */
+    HttpRequest.Builder newRequest(URI uri);
+
+    /**
+     * Sends the request and returns as soon as the headers arrived. The caller has to close
+     * the body stream. An interrupted thread cancels the request with an InterruptedIOException.
+     */
+    HttpResponse<InputStream> send(HttpRequest request) throws IOException;
+
+    /**
+     * Fetches a text resource like a JSON document, compressed if the server supports it and
+     * revalidated with its entity tag if it has been fetched before. Returns null if the
+     * server answers with anything but 200.
+     */
+    String getText(URI uri) throws IOException;
+}
@@ -0,0 +1,110 @@
+package io.foojay.discoeclipse.provision;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import io.foojay.api.discoclient.pkg.HashAlgorithm;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.catalog.Catalog;
+import io.foojay.discoeclipse.download.Checksum;
+import io.foojay.discoeclipse.download.DownloadJob;
+import io.foojay.discoeclipse.download.DownloadListener;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.net.Mirror;
+import io.foojay.discoeclipse.resolver.JdkResolver;
+
+
+/**
+ * Snapshots the JDKs of a provisioning manifest into the directory layout of a mirror.
+ * The archives are downloaded like provisioned ones and get an info file with their
+ * SHA-256 checksum, the catalog is the content of the catalog cache after the manifest
+ * has been resolved. Exporting into an existing mirror updates it.
+ */
+public class MirrorExporter extends Job {
+    private static final long WAIT_INTERVAL = 250;
+
+    private final Path            manifestFile;
+    private final Path            directory;
+    private final Catalog         catalog;
+    private final JdkResolver     resolver;
+    private final DownloadManager downloadManager;
+
+
+    public MirrorExporter(final Path manifestFile, final Path directory, final Catalog catalog, final JdkResolver resolver, final DownloadManager downloadManager) {
+        super("Exporting JDK mirror to " + directory);
+        this.manifestFile    = manifestFile;
+        this.directory       = directory;
+        this.catalog         = catalog;
+        this.resolver        = resolver;
+        this.downloadManager = downloadManager;
+    }
+
+
+    @Override protected IStatus run(final IProgressMonitor monitor) {
+        final MultiStatus result = new MultiStatus(Constants.PLUGIN_ID, 0, "Mirror export incomplete", null);
+        try {
+            final ProvisioningManifest manifest = ProvisioningManifest.read(manifestFile);
+            // the maintained versions are the entry point of the dialog
+            Provisioner.await(catalog.getMaintainedMajorVersions(null), monitor);
+            final Collection<Pkg> pkgs = Provisioner.resolve(manifest, resolver, result, monitor);
+
+            final List<DownloadJob> downloads = new ArrayList<>();
+            for (Pkg pkg : pkgs) { downloads.add(downloadManager.enqueue(pkg, getArchiveFolder(pkg), false, DownloadListener.NONE)); }
+            int index = 0;
+            for (Pkg pkg : pkgs) {
+                final DownloadJob download = downloads.get(index++);
+                awaitDownload(download, downloads, monitor);
+                if (download.getResult().isOK()) {
+                    publish(pkg, download.getDownloadedPath());
+                } else {
+                    result.add(download.getResult());
+                }
+            }
+            catalog.getCatalogCache().export(directory.resolve(Mirror.CATALOG_FOLDER));
+        } catch (InterruptedException e) {
+            return Status.CANCEL_STATUS;
+        } catch (ExecutionException e) {
+            return new Status(IStatus.ERROR, Constants.PLUGIN_ID, "Could not load the catalog", e.getCause());
+        } catch (IOException e) {
+            return new Status(IStatus.ERROR, Constants.PLUGIN_ID, e.getMessage(), e);
+        }
+        return result.getChildren().length == 0 ? Status.OK_STATUS : result;
+    }
+
+
+    private Path getArchiveFolder(final Pkg pkg) { return directory.resolve(Mirror.ARCHIVES_FOLDER).resolve(pkg.getId()); }
+
+    /** Stores the archive under the name the mirror serves it with next to its checksum */
+    private void publish(final Pkg pkg, final Path archive) throws IOException {
+        final Path folder = getArchiveFolder(pkg);
+        Path published = archive;
+        if (!archive.getFileName().toString().equals(pkg.getFileName())) {
+            published = Files.move(archive, folder.resolve(pkg.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.writeString(folder.resolve(Mirror.INFO_FILE), Checksum.of(published, HashAlgorithm.SHA256).toJson(), StandardCharsets.UTF_8);
+    }
+
+    private static void awaitDownload(final DownloadJob download, final List<DownloadJob> downloads, final IProgressMonitor monitor) throws InterruptedException {
+        while (null == download.getResult()) {
+            if (monitor.isCanceled()) {
+                downloads.forEach(Job::cancel);
+                throw new InterruptedException();
+            }
+            Thread.sleep(WAIT_INTERVAL);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.foojay.discoeclipse.provision;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.Constants;
+import io.foojay.discoeclipse.download.DownloadJob;
+import io.foojay.discoeclipse.download.DownloadListener;
+import io.foojay.discoeclipse.download.DownloadManager;
+import io.foojay.discoeclipse.resolver.JdkConstraints;
+import io.foojay.discoeclipse.resolver.JdkResolver;
+
+
+/**
+ * Reads a provisioning manifest, resolves all of its JDKs in one batch and queues their
+ * downloads. The resolver requests each package list once per version and distribution,
+ * the downloads run as concurrently as the download manager allows. Entries without a
+ * matching package are reported in the result of the job.
+ */
+public class Provisioner extends Job {
+    private static final long POLL_INTERVAL = 250;
+
+    private final Path              manifestFile;
+    private final JdkResolver       resolver;
+    private final DownloadManager   downloadManager;
+    private final List<DownloadJob> downloads;
+
+
+    public Provisioner(final Path manifestFile, final JdkResolver resolver, final DownloadManager downloadManager) {
+        super("Provisioning JDKs from " + manifestFile.getFileName());
+        this.manifestFile    = manifestFile;
+        this.resolver        = resolver;
+        this.downloadManager = downloadManager;
+        this.downloads       = new ArrayList<>();
+    }
+
+
+    /** Returns the downloads queued by this job once it finished */
+    public List<DownloadJob> getDownloads() { return downloads; }
+
+    @Override protected IStatus run(final IProgressMonitor monitor) {
+        final ProvisioningManifest manifest;
+        try {
+            manifest = ProvisioningManifest.read(manifestFile);
+        } catch (IOException e) {
+            return new Status(IStatus.ERROR, Constants.PLUGIN_ID, e.getMessage(), e);
+        }
+        if (monitor.isCanceled()) { return Status.CANCEL_STATUS; }
+
+        final MultiStatus     missing = new MultiStatus(Constants.PLUGIN_ID, 0, "No package available for some JDKs of the manifest", null);
+        final Collection<Pkg> pkgs;
+        try {
+            pkgs = resolve(manifest, resolver, missing, monitor);
+        } catch (InterruptedException e) {
+            return Status.CANCEL_STATUS;
+        } catch (ExecutionException e) {
+            return new Status(IStatus.ERROR, Constants.PLUGIN_ID, "Could not resolve the JDKs of the manifest", e.getCause());
+        }
+        for (Pkg pkg : pkgs) { downloads.add(downloadManager.enqueue(pkg, manifest.getTarget(), manifest.isExtract(), DownloadListener.NONE)); }
+        return missing.getChildren().length == 0 ? Status.OK_STATUS : missing;
+    }
+
+
+    /** Resolves all slots of the manifest in one batch and returns their distinct packages, slots without a package are added to missing */
+    public static Collection<Pkg> resolve(final ProvisioningManifest manifest, final JdkResolver resolver, final MultiStatus missing, final IProgressMonitor monitor) throws InterruptedException, ExecutionException {
+        monitor.beginTask("Resolving " + manifest.getSlots().size() + " JDKs", IProgressMonitor.UNKNOWN);
+        final List<JdkConstraints> constraints = new ArrayList<>();
+        manifest.getSlots().forEach(slot -> constraints.addAll(slot.getAlternatives()));
+
+        final Map<JdkConstraints, Pkg> resolved;
+        try {
+            resolved = await(resolver.resolveEach(constraints), monitor);
+        } finally {
+            monitor.done();
+        }
+
+        // slots may overlap, every package is provisioned once
+        final Map<String, Pkg> pkgs = new LinkedHashMap<>();
+        for (ProvisioningManifest.Slot slot : manifest.getSlots()) {
+            final Pkg pkg = slot.getAlternatives().stream().map(resolved::get).filter(p -> null != p).findFirst().orElse(null);
+            if (null == pkg) {
+                missing.add(new Status(IStatus.WARNING, Constants.PLUGIN_ID, slot.toString()));
+            } else {
+                pkgs.putIfAbsent(pkg.getId(), pkg);
+            }
+        }
+        return pkgs.values();
+    }
+
+    /** Waits for the future, cancelling it once the monitor is cancelled */
+    public static <T> T await(final CompletableFuture<T> future, final IProgressMonitor monitor) throws InterruptedException, ExecutionException {
+        while (true) {
+            if (monitor.isCanceled()) {
+                future.cancel(true);
+                throw new InterruptedException();
+            }
+            try {
+                return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check for cancellation again
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package io.foojay.discoeclipse.provision;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import io.foojay.api.discoclient.DiscoClient;
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.LibCType;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.SemVer;
+import io.foojay.api.discoclient.util.SemVerParsingResult;
+import io.foojay.discoeclipse.resolver.JdkConstraints;
+
+
+/**
+ * Declarative list of the JDKs to provision, read from a JSON file like
+ * <pre>
+ * {
+ *   "target"  : "mirror",
+ *   "extract" : false,
+ *   "jdks"    : [
+ *     { "version": "21", "distribution": "temurin", "os": ["linux", "windows", "macos"], "arch": ["x64", "aarch64"], "archive": ["tar.gz", "zip"] }
+ *   ]
+ * }
+ * </pre>
+ * Every entry stands for the cross product of its distributions, operating systems, libc
+ * types and architectures. The archive types are alternatives in the order of preference,
+ * e.g. tar.gz where available and zip otherwise. Missing fields match any value. The
+ * version is either a feature version like "21" or "21-ea" for its latest build or an
+ * exact version like "21.0.2". The target is resolved against the folder of the manifest,
+ * which is also the default. Reading a manifest may block on the Disco API to look up the
+ * distributions.
+ */
+public class ProvisioningManifest {
+    private static final String FIELD_TARGET       = "target";
+    private static final String FIELD_EXTRACT      = "extract";
+    private static final String FIELD_JDKS         = "jdks";
+    private static final String FIELD_VERSION      = "version";
+    private static final String FIELD_DISTRIBUTION = "distribution";
+    private static final String FIELD_OS           = "os";
+    private static final String FIELD_LIBC         = "libc";
+    private static final String FIELD_ARCH         = "arch";
+    private static final String FIELD_ARCHIVE      = "archive";
+    private static final String FIELD_JAVAFX       = "javafx";
+    private static final String EA_SUFFIX          = "-ea";
+    private static final String SPEC_SEPARATOR     = ":";
+    private static final String VALUE_SEPARATOR    = ",";
+
+    private final Path       target;
+    private final boolean    extract;
+    private final List<Slot> slots;
+
+
+    public ProvisioningManifest(final Path target, final boolean extract, final List<Slot> slots) {
+        this.target  = target;
+        this.extract = extract;
+        this.slots   = Collections.unmodifiableList(new ArrayList<>(slots));
+    }
+
+
+    /** Reads and expands the manifest, unknown values are reported as IOException */
+    public static ProvisioningManifest read(final Path file) throws IOException {
+        try {
+            final JsonObject json   = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+            final Path       folder = file.toAbsolutePath().getParent();
+            final Path       target = json.has(FIELD_TARGET) ? folder.resolve(json.get(FIELD_TARGET).getAsString()).normalize() : folder;
+            final List<Slot> slots  = new ArrayList<>();
+            if (json.has(FIELD_JDKS)) {
+                for (JsonElement element : json.getAsJsonArray(FIELD_JDKS)) { expand(element.getAsJsonObject(), slots); }
+            }
+            return new ProvisioningManifest(target, json.has(FIELD_EXTRACT) && json.get(FIELD_EXTRACT).getAsBoolean(), slots);
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            throw new IOException("Invalid provisioning manifest " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Expands a JDK written on one line with the fields of a manifest entry, e.g.
+     * "21:distribution=temurin:os=linux,macos:arch=x64". The version comes first and
+     * multiple values of a field are separated by commas.
+     */
+    public static List<Slot> parse(final String spec) throws IOException {
+        final String[]   parts = spec.trim().split(SPEC_SEPARATOR);
+        final JsonObject json  = new JsonObject();
+        json.addProperty(FIELD_VERSION, parts[0]);
+        for (int i = 1 ; i < parts.length ; i++) {
+            final int separator = parts[i].indexOf('=');
+            if (separator < 0) { throw new IOException("Expected field=value instead of " + parts[i] + " in " + spec); }
+            final String field = parts[i].substring(0, separator).trim();
+            final String value = parts[i].substring(separator + 1);
+            switch (field) {
+                case FIELD_JAVAFX      : json.addProperty(field, Boolean.parseBoolean(value.trim())); break;
+                case FIELD_DISTRIBUTION:
+                case FIELD_OS          :
+                case FIELD_LIBC        :
+                case FIELD_ARCH        :
+                case FIELD_ARCHIVE     :
+                    final JsonArray values = new JsonArray();
+                    for (String text : value.split(VALUE_SEPARATOR)) { values.add(text); }
+                    json.add(field, values);
+                    break;
+                default                : throw new IOException("Unknown field " + field + " in " + spec);
+            }
+        }
+        final List<Slot> slots = new ArrayList<>();
+        expand(json, slots);
+        return slots;
+    }
+
+
+    /** Returns the folder to provision into */
+    public Path getTarget() { return target; }
+
+    public boolean isExtract() { return extract; }
+
+    public List<Slot> getSlots() { return slots; }
+
+
+    private static void expand(final JsonObject json, final List<Slot> slots) throws IOException {
+        if (!json.has(FIELD_VERSION)) { throw new IOException("Missing version in " + json); }
+        final String             version       = json.get(FIELD_VERSION).getAsString().trim();
+        final List<Distribution> distributions = getValues(json, FIELD_DISTRIBUTION, DiscoClient::getDistributionFromText, null);
+        final List<OperatingSystem> systems    = getValues(json, FIELD_OS, OperatingSystem::fromText, OperatingSystem.NOT_FOUND);
+        final List<LibCType>     libcTypes     = getValues(json, FIELD_LIBC, LibCType::fromText, LibCType.NOT_FOUND);
+        final List<Architecture> architectures = getValues(json, FIELD_ARCH, Architecture::fromText, Architecture.NOT_FOUND);
+        final List<ArchiveType>  archiveTypes  = getValues(json, FIELD_ARCHIVE, ArchiveType::fromText, ArchiveType.NOT_FOUND);
+        final Boolean            javafx        = json.has(FIELD_JAVAFX) ? json.get(FIELD_JAVAFX).getAsBoolean() : null;
+        final SemVer             semVer        = isFeatureVersion(version) ? null : parseVersion(version);
+
+        for (Distribution distribution : distributions) {
+            for (OperatingSystem operatingSystem : systems) {
+                for (LibCType libcType : libcTypes) {
+                    for (Architecture architecture : architectures) {
+                        final List<JdkConstraints> alternatives = new ArrayList<>();
+                        for (ArchiveType archiveType : archiveTypes) {
+                            alternatives.add(null == semVer ? new JdkConstraints(Integer.parseInt(version.replace(EA_SUFFIX, "")), version.endsWith(EA_SUFFIX), distribution,
+                                                                                 operatingSystem, libcType, architecture, archiveType, javafx)
+                                                            : new JdkConstraints(semVer, distribution, operatingSystem, libcType, architecture, archiveType, javafx));
+                        }
+                        slots.add(new Slot(alternatives));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isFeatureVersion(final String version) { return version.matches("\\d+(" + EA_SUFFIX + ")?"); }
+
+    private static SemVer parseVersion(final String version) throws IOException {
+        final SemVerParsingResult result = SemVer.fromText(version);
+        if (null != result.getError1() || null == result.getSemVer1()) { throw new IOException("Unknown version " + version); }
+        return result.getSemVer1();
+    }
+
+    /** Reads a string or an array of strings, a missing field stands for any value which is a single null */
+    private static <T> List<T> getValues(final JsonObject json, final String field, final Function<String, T> parser, final T notFound) throws IOException {
+        if (!json.has(field)) { return Collections.singletonList(null); }
+        final JsonElement  element = json.get(field);
+        final List<String> texts   = new ArrayList<>();
+        if (element.isJsonArray()) {
+            for (JsonElement item : (JsonArray) element) { texts.add(item.getAsString()); }
+        } else {
+            texts.add(element.getAsString());
+        }
+        final List<T> values = new ArrayList<>();
+        for (String text : texts) {
+            final T value = parser.apply(text.trim());
+            if (null == value || notFound == value) { throw new IOException("Unknown " + field + " " + text); }
+            values.add(value);
+        }
+        return values;
+    }
+
+
+    /** One JDK to provision with the constraints to try in order */
+    public static class Slot {
+        private final List<JdkConstraints> alternatives;
+
+
+        Slot(final List<JdkConstraints> alternatives) {
+            this.alternatives = Collections.unmodifiableList(alternatives);
+        }
+
+
+        public List<JdkConstraints> getAlternatives() { return alternatives; }
+
+        @Override public String toString() { return alternatives.get(0).toString(); }
+    }
+}
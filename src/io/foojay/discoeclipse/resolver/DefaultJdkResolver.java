@@ -0,0 +1,152 @@
+package io.foojay.discoeclipse.resolver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import io.foojay.api.discoclient.pkg.PackageType;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.catalog.Catalog;
+import io.foojay.discoeclipse.catalog.CatalogCache;
+import io.foojay.discoeclipse.catalog.CatalogWarmUp;
+import io.foojay.discoeclipse.catalog.CompactCatalog;
+import io.foojay.discoeclipse.catalog.PkgIndex;
+
+
+/**
+ * Resolves constraints against the package lists of the catalog. The package list
+ * is fetched once per version and distribution, the remaining constraints are applied on
+ * a package index and the candidates are ranked by their precomputed version keys, newest
+ * build first. Resolutions are kept as long as the catalog considers its data fresh, up to
+ * MAX_RESOLUTIONS of them, and dropped when the catalog cache stores new data.
+ */
+public class DefaultJdkResolver implements JdkResolver {
+    private static final int                MAX_RESOLUTIONS = 256;
+    private static       DefaultJdkResolver defaultResolver;
+
+    private final Catalog                         catalog;
+    private final Duration                        ttl;
+    private final Map<JdkConstraints, Resolution> resolutions;
+
+
+    public DefaultJdkResolver(final Catalog catalog, final Duration ttl) {
+        this.catalog     = catalog;
+        this.ttl         = ttl;
+        this.resolutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(final Map.Entry<JdkConstraints, Resolution> eldest) { return size() > MAX_RESOLUTIONS; }
+        };
+        // resolutions still loading get the new data anyway
+        catalog.getCatalogCache().addStoreListener(key -> {
+            synchronized (resolutions) { resolutions.values().removeIf(resolution -> resolution.future.isDone()); }
+        });
+    }
+
+
+    public static synchronized DefaultJdkResolver getDefault() {
+        if (null == defaultResolver) { defaultResolver = new DefaultJdkResolver(Catalog.getDefault(), CatalogCache.DEFAULT_TTL); }
+        return defaultResolver;
+    }
+
+
+    @Override public CompletableFuture<Pkg> resolve(final JdkConstraints constraints) {
+        return resolveAll(constraints).thenApply(pkgs -> pkgs.isEmpty() ? null : pkgs.get(0));
+    }
+
+    @Override public CompletableFuture<List<Pkg>> resolveAll(final JdkConstraints constraints) {
+        final long now = System.currentTimeMillis();
+        Resolution resolution;
+        synchronized (resolutions) { resolution = resolutions.get(constraints); }
+        if (null == resolution || resolution.isStale(now, ttl) || resolution.future.isCompletedExceptionally()) {
+            resolution = new Resolution(load(constraints).thenApply(pkgs -> rank(new PkgIndex(pkgs), constraints)), now);
+            put(constraints, resolution);
+        }
+        // callers get a copy, cancelling it must not cancel the resolution others share
+        return resolution.future.copy();
+    }
+
+    /** Loads one package list and builds one index per version and distribution, whatever else the constraints differ in */
+    @Override public CompletableFuture<Map<JdkConstraints, Pkg>> resolveEach(final Collection<JdkConstraints> constraints) {
+        final Map<String, List<JdkConstraints>> queries = new LinkedHashMap<>();
+        constraints.forEach(c -> queries.computeIfAbsent(getQuery(c), query -> new ArrayList<>()).add(c));
+
+        final List<CompletableFuture<Map<JdkConstraints, Pkg>>> batches = queries.values().stream().map(group -> load(group.get(0)).thenApply(pkgs -> {
+            final PkgIndex                 index  = new PkgIndex(pkgs);
+            final long                     now    = System.currentTimeMillis();
+            final Map<JdkConstraints, Pkg> result = new HashMap<>();
+            for (JdkConstraints c : group) {
+                final List<Pkg> ranked = rank(index, c);
+                put(c, new Resolution(CompletableFuture.completedFuture(ranked), now));
+                if (!ranked.isEmpty()) { result.put(c, ranked.get(0)); }
+            }
+            return result;
+        })).collect(Collectors.toList());
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            final Map<JdkConstraints, Pkg> pkgs = new HashMap<>();
+            batches.forEach(batch -> pkgs.putAll(batch.join()));
+            return pkgs;
+        });
+    }
+
+    /** Forgets all resolutions, e.g. after the catalog cache was cleared */
+    public void clear() {
+        synchronized (resolutions) { resolutions.clear(); }
+    }
+
+
+    /** Stale resolutions are dropped with every new one, they would keep their catalog alive until evicted */
+    private void put(final JdkConstraints constraints, final Resolution resolution) {
+        synchronized (resolutions) {
+            resolutions.values().removeIf(r -> r.isStale(resolution.created, ttl));
+            resolutions.put(constraints, resolution);
+        }
+    }
+
+    private CompletableFuture<List<Pkg>> load(final JdkConstraints constraints) {
+        CatalogWarmUp.getDefault().used();
+        return null == constraints.getVersion() ? catalog.getPkgs(constraints.getDistribution(), constraints.getFeatureVersion(), constraints.isEarlyAccess())
+                                                : catalog.getPkgs(constraints.getDistribution(), constraints.getVersion());
+    }
+
+    /** Constraints with the same query are answered by the same package list */
+    private static String getQuery(final JdkConstraints constraints) {
+        final String distribution = null == constraints.getDistribution() ? "all" : constraints.getDistribution().getApiString();
+        return null == constraints.getVersion() ? distribution + "-" + constraints.getFeatureVersion() + (constraints.isEarlyAccess() ? "-ea" : "-ga")
+                                                : distribution + "-" + constraints.getVersion().toString(true);
+    }
+
+    /** Only the rows are ranked, packages are created when the ranking is read */
+    private static List<Pkg> rank(final PkgIndex index, final JdkConstraints constraints) {
+        final CompactCatalog catalog = index.getCatalog();
+        final int[]          rows    = index.select(constraints.isJavafxBundled(), constraints.getDistribution(), constraints.getOperatingSystem(), constraints.getLibCType(), constraints.getArchitecture(), constraints.getArchiveType())
+                                            .stream()
+                                            .filter(row -> null == catalog.getPackageType(row) || PackageType.JDK == catalog.getPackageType(row))
+                                            .boxed()
+                                            .sorted(Comparator.<Integer>comparingLong(catalog::getVersion).thenComparingLong(catalog::getQualifier).reversed())
+                                            .mapToInt(Integer::intValue)
+                                            .toArray();
+        return catalog.rows(rows);
+    }
+
+
+    private static class Resolution {
+        private final CompletableFuture<List<Pkg>> future;
+        private final long                         created;
+
+
+        Resolution(final CompletableFuture<List<Pkg>> future, final long created) {
+            this.future  = future;
+            this.created = created;
+        }
+
+
+        boolean isStale(final long now, final Duration ttl) { return now - created > ttl.toMillis(); }
+    }
+}
@@ -0,0 +1,98 @@
+package io.foojay.discoeclipse.resolver;
+
+import java.util.Objects;
+
+import io.foojay.api.discoclient.pkg.Architecture;
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.Distribution;
+import io.foojay.api.discoclient.pkg.LibCType;
+import io.foojay.api.discoclient.pkg.OperatingSystem;
+import io.foojay.api.discoclient.pkg.ReleaseStatus;
+import io.foojay.api.discoclient.pkg.SemVer;
+
+
+/**
+ * Declarative description of the JDK someone needs. Either an exact version or a feature
+ * version is required, every other constraint may be null which stands for any value.
+ * Constraints are immutable and can be used as keys.
+ */
+public class JdkConstraints {
+    private final int             featureVersion;
+    private final boolean         earlyAccess;
+    private final SemVer          version;
+    private final Distribution    distribution;
+    private final OperatingSystem operatingSystem;
+    private final LibCType        libcType;
+    private final Architecture    architecture;
+    private final ArchiveType     archiveType;
+    private final Boolean         javafxBundled;
+
+
+    /** Constraints for the latest build of the given feature version */
+    public JdkConstraints(final int featureVersion, final boolean earlyAccess, final Distribution distribution, final OperatingSystem operatingSystem, final LibCType libcType,
+                          final Architecture architecture, final ArchiveType archiveType, final Boolean javafxBundled) {
+        this(featureVersion, earlyAccess, null, distribution, operatingSystem, libcType, architecture, archiveType, javafxBundled);
+    }
+
+    /** Constraints for the given version */
+    public JdkConstraints(final SemVer version, final Distribution distribution, final OperatingSystem operatingSystem, final LibCType libcType,
+                          final Architecture architecture, final ArchiveType archiveType, final Boolean javafxBundled) {
+        this(version.getFeature(), ReleaseStatus.EA == version.getReleaseStatus(), version, distribution, operatingSystem, libcType, architecture, archiveType, javafxBundled);
+    }
+
+    private JdkConstraints(final int featureVersion, final boolean earlyAccess, final SemVer version, final Distribution distribution, final OperatingSystem operatingSystem,
+                           final LibCType libcType, final Architecture architecture, final ArchiveType archiveType, final Boolean javafxBundled) {
+        this.featureVersion  = featureVersion;
+        this.earlyAccess     = earlyAccess;
+        this.version         = version;
+        this.distribution    = distribution;
+        this.operatingSystem = operatingSystem;
+        this.libcType        = libcType;
+        this.architecture    = architecture;
+        this.archiveType     = archiveType;
+        this.javafxBundled   = javafxBundled;
+    }
+
+
+    public int getFeatureVersion() { return featureVersion; }
+
+    public boolean isEarlyAccess() { return earlyAccess; }
+
+    /** Returns the exact version or null if the latest build of the feature version is wanted */
+    public SemVer getVersion() { return version; }
+
+    public Distribution getDistribution() { return distribution; }
+
+    public OperatingSystem getOperatingSystem() { return operatingSystem; }
+
+    public LibCType getLibCType() { return libcType; }
+
+    public Architecture getArchitecture() { return architecture; }
+
+    public ArchiveType getArchiveType() { return archiveType; }
+
+    public Boolean isJavafxBundled() { return javafxBundled; }
+
+    @Override public boolean equals(final Object o) {
+        if (this == o) { return true; }
+        if (!(o instanceof JdkConstraints)) { return false; }
+        final JdkConstraints other = (JdkConstraints) o;
+        return featureVersion == other.featureVersion && earlyAccess == other.earlyAccess && Objects.equals(getVersionText(), other.getVersionText()) &&
+               Objects.equals(getDistributionName(), other.getDistributionName()) && operatingSystem == other.operatingSystem && libcType == other.libcType &&
+               architecture == other.architecture && archiveType == other.archiveType && Objects.equals(javafxBundled, other.javafxBundled);
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(featureVersion, earlyAccess, getVersionText(), getDistributionName(), operatingSystem, libcType, architecture, archiveType, javafxBundled);
+    }
+
+    @Override public String toString() {
+        return (null == version ? featureVersion + (earlyAccess ? "-ea" : "") : getVersionText()) + " " + getDistributionName() + " " + operatingSystem + " " + libcType + " " +
+               architecture + " " + archiveType + " javafx=" + javafxBundled;
+    }
+
+
+    private String getVersionText() { return null == version ? null : version.toString(true); }
+
+    private String getDistributionName() { return null == distribution ? null : distribution.getApiString(); }
+}
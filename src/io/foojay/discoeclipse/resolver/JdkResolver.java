@@ -0,0 +1,42 @@
+package io.foojay.discoeclipse.resolver;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.foojay.api.discoclient.pkg.Pkg;
+
+
+/**
+ * Finds the packages matching a set of constraints without any user interface. The plugin
+ * registers an implementation as OSGi service, so launch configurations, headless builds
+ * and the JDK dialog all resolve packages the same way.
+ * The returned futures may be cancelled without affecting other callers.
+ */
+public interface JdkResolver {
+
+    /** Returns the best matching package or null if no package matches */
+    CompletableFuture<Pkg> resolve(JdkConstraints constraints);
+
+    /** Returns all matching packages, the best first */
+    CompletableFuture<List<Pkg>> resolveAll(JdkConstraints constraints);
+
+    /**
+     * Resolves many constraints at once and returns the best matching package for each of
+     * them, constraints without a match are missing in the map. Implementations should
+     * load the package list for constraints of the same version and distribution only once.
+     */
+    default CompletableFuture<Map<JdkConstraints, Pkg>> resolveEach(final Collection<JdkConstraints> constraints) {
+        final Map<JdkConstraints, CompletableFuture<Pkg>> futures = new HashMap<>();
+        constraints.forEach(c -> futures.put(c, resolve(c)));
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            final Map<JdkConstraints, Pkg> pkgs = new HashMap<>();
+            futures.forEach((c, future) -> {
+                if (null != future.join()) { pkgs.put(c, future.join()); }
+            });
+            return pkgs;
+        });
+    }
+}
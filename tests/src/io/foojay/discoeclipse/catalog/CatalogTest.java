@@ -0,0 +1,94 @@
+package io.foojay.discoeclipse.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.foojay.api.discoclient.PropertyManager;
+import io.foojay.api.discoclient.pkg.MajorVersion;
+import io.foojay.api.discoclient.pkg.Pkg;
+import io.foojay.discoeclipse.metrics.Metrics;
+import io.foojay.discoeclipse.net.HttpTransport;
+import io.foojay.discoeclipse.net.Mirror;
+import io.foojay.discoeclipse.standin.StandInServer;
+
+
+/**
+ * Time to a populated catalog against the recorded Disco API responses of a StandInServer
+ * that delays every response, cold and from the cache of an earlier catalog. The
+ * recordings are refreshed with a StandInServer in record mode.
+ */
+public class CatalogTest {
+    private static final long POPULATE_TIMEOUT = 10;
+    private static final long LATENCY          = 250;
+    private static final long COLD_POPULATED   = 3_000;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private StandInServer server;
+    private String        previousUri;
+
+
+    @Before public void setUp() throws IOException {
+        server      = Recordings.startServer(folder.newFolder("recordings").toPath());
+        previousUri = PropertyManager.INSTANCE.getString(io.foojay.api.discoclient.util.Constants.PROPERTY_KEY_DISCO_URL);
+        Mirror.setDiscoUri(server.getUri().toString());
+    }
+
+    @After public void tearDown() {
+        Mirror.setDiscoUri(previousUri);
+        server.close();
+    }
+
+
+    /** The major versions and the packages are two responses, each one delayed by the latency */
+    @Test public void populateCold() throws Exception {
+        server.setLatency(LATENCY);
+        final Path      cache    = folder.newFolder("cache").toPath();
+        final long      requests = server.getRequestCount();
+        final long      start    = System.nanoTime();
+        final List<Pkg> pkgs     = populate(cache);
+        final long      millis   = millis(start);
+        assertFalse("No packages of the latest GA release", pkgs.isEmpty());
+        assertEquals(2, server.getRequestCount() - requests);
+        assertTrue("Populated after " + millis + " ms", millis < COLD_POPULATED);
+    }
+
+    /** A catalog on a fresh cache is populated without a request, faster than a single response would take */
+    @Test public void populateCached() throws Exception {
+        server.setLatency(LATENCY);
+        final Path      cache    = folder.newFolder("cache").toPath();
+        final List<Pkg> cold     = populate(cache);
+        final long      requests = server.getRequestCount();
+        final long      start    = System.nanoTime();
+        final List<Pkg> cached   = populate(cache);
+        final long      millis   = millis(start);
+        assertEquals(cold.size(), cached.size());
+        assertEquals("Requests although the cache is fresh", requests, server.getRequestCount());
+        assertTrue("Populated from the cache after " + millis + " ms", millis < LATENCY);
+    }
+
+
+    /** Populates a new catalog on the given cache folder with the packages of the latest GA release */
+    static List<Pkg> populate(final Path cache) throws Exception {
+        final Catalog            catalog       = new Catalog(new CatalogCache(cache, CatalogCache.DEFAULT_TTL), new Mirror(new HttpTransport(HttpTransport.CONNECT_TIMEOUT, HttpTransport.READ_TIMEOUT, null, null), null), new Metrics());
+        final List<MajorVersion> majorVersions = catalog.getMaintainedMajorVersions(null).get(POPULATE_TIMEOUT, TimeUnit.SECONDS);
+        final MajorVersion       latest        = majorVersions.stream().filter(majorVersion -> !Boolean.TRUE.equals(majorVersion.isEarlyAccessOnly()))
+                                                              .max(Comparator.comparingInt(MajorVersion::getAsInt)).orElseThrow();
+        return catalog.getPkgs(null, latest.getAsInt(), false).get(POPULATE_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    private static long millis(final long start) { return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start); }
+}
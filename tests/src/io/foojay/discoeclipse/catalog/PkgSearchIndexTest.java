@@ -0,0 +1,67 @@
+package io.foojay.discoeclipse.catalog;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.foojay.api.discoclient.PropertyManager;
+import io.foojay.discoeclipse.net.Mirror;
+import io.foojay.discoeclipse.standin.StandInServer;
+
+
+/**
+ * Queries of the quick pick against the recorded packages, the only one is a Temurin
+ * 21.0.2 JDK for linux on x64 as tar.gz.
+ */
+public class PkgSearchIndexTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private StandInServer  server;
+    private String         previousUri;
+    private PkgSearchIndex index;
+
+
+    @Before public void setUp() throws Exception {
+        server      = Recordings.startServer(folder.newFolder("recordings").toPath());
+        previousUri = PropertyManager.INSTANCE.getString(io.foojay.api.discoclient.util.Constants.PROPERTY_KEY_DISCO_URL);
+        Mirror.setDiscoUri(server.getUri().toString());
+        index       = new PkgSearchIndex();
+        index.add(CatalogTest.populate(folder.newFolder("cache").toPath()));
+        assertEquals(1, index.size());
+    }
+
+    @After public void tearDown() {
+        Mirror.setDiscoUri(previousUri);
+        server.close();
+    }
+
+
+    @Test public void matchTokens() {
+        for (String query : List.of("", "temurin", "x64", "linux", "tar.gz", "21", "21.0.2", "temurin 21 linux", "TEMURIN", "tem")) { assertMatches(query); }
+    }
+
+    @Test public void matchAliases() {
+        for (String query : List.of("amd64", "x86_64", "x86", "linux x86_64")) { assertMatches(query); }
+    }
+
+    @Test public void matchWordsWithSeparators() {
+        for (String query : List.of("linux-x64", "linux_x64", "x64-linux", "jdk_x64_linux", "hotspot_21.0.2_13", "temurin/21")) { assertMatches(query); }
+    }
+
+    @Test public void rejectOtherPackages() {
+        for (String query : List.of("windows", "aarch64", "linux-aarch64", "x86_32", "17", "zulu", "temurin 17")) { assertEquals(query, 0, index.search(query).size()); }
+    }
+
+
+    private void assertMatches(final String query) {
+        final List<PkgSearchIndex.Hit> hits = index.search(query);
+        assertEquals(query, 1, hits.size());
+        assertEquals(query, "OpenJDK21U-jdk_x64_linux_hotspot_21.0.2_13.tar.gz", hits.get(0).getFileName());
+    }
+}
@@ -0,0 +1,30 @@
+package io.foojay.discoeclipse.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import io.foojay.discoeclipse.standin.StandInServer;
+
+
+/** The recorded Disco API responses next to this class, served by a StandInServer */
+final class Recordings {
+    private static final List<String> NAMES = List.of("disco_v2.0_major_versions-302cf6ff95626ca2.json", "disco_v2.0_packages-fdea68049c73d8ef.json");
+
+
+    private Recordings() {}
+
+
+    /** Copies the recordings into the given folder and starts a stand-in that replays them */
+    static StandInServer startServer(final Path folder) throws IOException {
+        Files.createDirectories(folder);
+        for (String name : NAMES) {
+            try (InputStream in = Recordings.class.getResourceAsStream("recordings/" + name)) { Files.copy(in, folder.resolve(name)); }
+        }
+        final StandInServer server = new StandInServer(folder, null, null, 0);
+        server.start();
+        return server;
+    }
+}
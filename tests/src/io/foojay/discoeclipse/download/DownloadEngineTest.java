@@ -0,0 +1,157 @@
+package io.foojay.discoeclipse.download;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.net.HttpTransport;
+import io.foojay.discoeclipse.standin.StandInServer;
+
+
+/**
+ * Downloads of the synthetic archives of a StandInServer, segmented for archives of at
+ * least MIN_SEGMENTED_SIZE and as single stream for smaller ones: the throughput against
+ * the bandwidth limit of the stand-in per response, the recovery from responses that
+ * break off halfway and how fast a cancelled download stops.
+ */
+public class DownloadEngineTest {
+    private static final long SEGMENTED_SIZE      = DownloadEngine.MIN_SEGMENTED_SIZE;
+    private static final long STREAM_SIZE         = 4 * 1024 * 1024;
+    private static final long BANDWIDTH_LIMIT     = 8 * 1024 * 1024;
+    private static final long DOWNLOAD_TIMEOUT    = 30_000;
+    private static final long FIRST_BYTES_TIMEOUT = 10_000;
+    private static final long CANCEL_TIMEOUT      = 5_000;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private StandInServer  server;
+    private DownloadEngine engine;
+
+
+    @Before public void setUp() throws IOException {
+        server = new StandInServer(folder.newFolder("recordings").toPath(), null, null, 0);
+        server.start();
+        engine = new DownloadEngine(new HttpTransport(HttpTransport.CONNECT_TIMEOUT, HttpTransport.READ_TIMEOUT, null, null), () -> DiscoExecutors.get(Workload.DOWNLOAD), DownloadEngine.MAX_CONNECTIONS, new BandwidthLimiter(0));
+    }
+
+    @After public void tearDown() { server.close(); }
+
+
+    /** A segmented download starts with two connections, so it has to be faster than one response may be */
+    @Test(timeout = DOWNLOAD_TIMEOUT) public void segmentedThroughput() throws IOException {
+        server.setArchiveSize(SEGMENTED_SIZE);
+        server.setBandwidthLimit(BANDWIDTH_LIMIT);
+        final long bytesPerSecond = download("OpenJDK21U-jdk_x64_linux_hotspot_21.0.2_13.tar.gz");
+        assertSegmented(SEGMENTED_SIZE / DownloadEngine.CHUNK_SIZE);
+        assertTrue("Segmented download at " + bytesPerSecond + " bytes/s, not faster than one connection", bytesPerSecond > BANDWIDTH_LIMIT * 5 / 4);
+    }
+
+    @Test(timeout = DOWNLOAD_TIMEOUT) public void streamThroughput() throws IOException {
+        server.setArchiveSize(STREAM_SIZE);
+        server.setBandwidthLimit(BANDWIDTH_LIMIT);
+        final long bytesPerSecond = download("OpenJDK21U-jdk_x64_linux_hotspot_21.0.2_13.tar.gz");
+        assertStream();
+        assertTrue("Download at " + bytesPerSecond + " bytes/s, less than half of the limit", bytesPerSecond > BANDWIDTH_LIMIT / 2);
+    }
+
+    /** The first response for the archive breaks off halfway, the engine verifies the checksum of the result */
+    @Test(timeout = DOWNLOAD_TIMEOUT) public void segmentedRecoveryFromBrokenResponses() throws IOException {
+        server.setArchiveSize(SEGMENTED_SIZE);
+        server.setFailures(1);
+        download("zulu17.48.15-ca-jdk17.0.10-linux_x64.zip");
+        // the broken chunk is requested again
+        assertSegmented(SEGMENTED_SIZE / DownloadEngine.CHUNK_SIZE + 1);
+    }
+
+    @Test(timeout = DOWNLOAD_TIMEOUT) public void streamRecoveryFromBrokenResponses() throws IOException {
+        server.setArchiveSize(STREAM_SIZE);
+        server.setFailures(1);
+        download("zulu17.48.15-ca-jdk17.0.10-linux_x64.zip");
+        // the second response continues where the first one broke off
+        assertEquals(1, server.getRangeRequestCount());
+    }
+
+    @Test public void segmentedCancel() throws Exception {
+        server.setArchiveSize(SEGMENTED_SIZE);
+        cancel("bellsoft-jdk11.0.22+12-linux-amd64.tar.gz");
+        assertSegmented(2);
+    }
+
+    @Test public void streamCancel() throws Exception {
+        server.setArchiveSize(STREAM_SIZE);
+        cancel("bellsoft-jdk11.0.22+12-linux-amd64.tar.gz");
+        assertStream();
+    }
+
+
+    /** Downloads the synthetic archive of the given file name and returns the throughput, the engine verifies its checksum */
+    private long download(final String fileName) throws IOException {
+        final Path       target      = folder.getRoot().toPath().resolve(fileName);
+        // creates the archive, so it is not part of the measurement
+        final Checksum   checksum    = server.getChecksum(fileName);
+        final AtomicLong transferred = new AtomicLong();
+        final long       start       = System.nanoTime();
+        engine.download(server.getArchiveUri(fileName), target, checksum, new DownloadListener() {
+            @Override public void transferred(final long bytes) { transferred.addAndGet(bytes); }
+        });
+        final long       nanos       = Math.max(1, System.nanoTime() - start);
+        assertTrue(Files.exists(target));
+        return transferred.get() * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /** Interrupts a download once the first bytes arrived, it has to stop within the cancel timeout and leave no archive */
+    private void cancel(final String fileName) throws Exception {
+        // throttled, so the download is still running when it is cancelled
+        server.setBandwidthLimit(server.getArchiveSize() / 10);
+        final Path                       target     = folder.getRoot().toPath().resolve(fileName);
+        final CountDownLatch             firstBytes = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure    = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                engine.download(server.getArchiveUri(fileName), target, server.getChecksum(fileName), new DownloadListener() {
+                    @Override public void transferred(final long bytes) { firstBytes.countDown(); }
+                });
+            } catch (IOException | RuntimeException e) {
+                failure.set(e);
+            }
+        }, "DiscoEclipse test download");
+        thread.start();
+
+        assertTrue("No data received within " + FIRST_BYTES_TIMEOUT + " ms", firstBytes.await(FIRST_BYTES_TIMEOUT, TimeUnit.MILLISECONDS));
+        thread.interrupt();
+        thread.join(CANCEL_TIMEOUT);
+        assertFalse("Still downloading " + CANCEL_TIMEOUT + " ms after the cancellation", thread.isAlive());
+        if (!(failure.get() instanceof InterruptedIOException)) {
+            fail(null == failure.get() ? "The download completed although it was cancelled" : "Failed instead of cancelled: " + failure.get());
+        }
+        assertFalse("The cancelled download left " + target, Files.exists(target));
+        DownloadEngine.discard(target);
+    }
+
+    /** Every chunk is a range request of its own, the first two are requested at once */
+    private void assertSegmented(final long chunks) {
+        assertTrue("Not downloaded in segments", server.getRangeRequestCount() >= chunks);
+    }
+
+    private void assertStream() {
+        assertEquals("Downloaded in segments", 0, server.getRangeRequestCount());
+    }
+}
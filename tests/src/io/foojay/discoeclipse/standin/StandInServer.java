@@ -0,0 +1,369 @@
+package io.foojay.discoeclipse.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.foojay.api.discoclient.pkg.ArchiveType;
+import io.foojay.api.discoclient.pkg.HashAlgorithm;
+import io.foojay.discoeclipse.DiscoExecutors;
+import io.foojay.discoeclipse.DiscoExecutors.DiscoExecutor;
+import io.foojay.discoeclipse.DiscoExecutors.Workload;
+import io.foojay.discoeclipse.download.BandwidthLimiter;
+import io.foojay.discoeclipse.download.Checksum;
+import io.foojay.discoeclipse.extract.ArchiveExtractor;
+import io.foojay.discoeclipse.net.Transport;
+
+
+/**
+ * Local stand-in for the Disco API and the vendor download sites, so the plugin can be
+ * measured without network access. Disco API requests are answered with responses that
+ * were recorded before, one file per path and query:
+ * <pre>
+ * &lt;recordings&gt;/disco_v2.0_major_versions-&lt;hash of the query&gt;.json
+ * </pre>
+ * In record mode requests that have no recording yet are passed to the upstream API and
+ * their responses are saved. Package infos are rewritten to point to synthetic archives
+ * under /archives/&lt;file name&gt;, which are generated from the file name, always have the
+ * same content and contain a JDK layout with a release file. Latency, a bandwidth limit
+ * per response and archive responses that break off halfway can be injected.
+ */
+public class StandInServer implements Closeable {
+    public  static final String  ARCHIVES_PATH        = "/archives/";
+    public  static final long    DEFAULT_ARCHIVE_SIZE = 24 * 1024 * 1024;
+    private static final String  DISCO_PATH           = "/disco/";
+    private static final String  EPHEMERAL_IDS_PATH   = io.foojay.api.discoclient.util.Constants.EPHEMERAL_IDS_PATH;
+    private static final String  FIELD_RESULT         = "result";
+    private static final String  FIELD_FILENAME       = "filename";
+    private static final int     CHUNK_SIZE           = 16 * 1024;
+    private static final int     TAR_BLOCK_SIZE       = 512;
+    private static final Pattern VERSION              = Pattern.compile("\\d+\\.\\d+\\.\\d+");
+
+    private final Path                       recordings;
+    private final URI                        upstream;
+    private final Transport                  transport;
+    private final HttpServer                 server;
+    private final DiscoExecutor              executor;
+    private final Map<String, byte[]>        archives;
+    private final Map<String, AtomicInteger> archiveRequests;
+    private final AtomicLong                 requests;
+    private final AtomicLong                 rangeRequests;
+    private volatile long                    latency;
+    private volatile long                    bytesPerSecond;
+    private volatile int                     failures;
+    private volatile long                    archiveSize;
+
+
+    /**
+     * Creates a server on the loopback interface that replays the given recordings, in
+     * record mode if an upstream uri and transport are given. Port 0 picks a free port.
+     */
+    public StandInServer(final Path recordings, final URI upstream, final Transport transport, final int port) throws IOException {
+        this.recordings      = recordings;
+        this.upstream        = upstream;
+        this.transport       = transport;
+        this.server          = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor        = DiscoExecutors.newExecutor(Workload.DOWNLOAD);
+        this.archives        = new ConcurrentHashMap<>();
+        this.archiveRequests = new ConcurrentHashMap<>();
+        this.requests        = new AtomicLong();
+        this.rangeRequests   = new AtomicLong();
+        this.archiveSize     = DEFAULT_ARCHIVE_SIZE;
+        server.createContext(DISCO_PATH, this::handleApi);
+        server.createContext(ARCHIVES_PATH, this::handleArchive);
+        server.setExecutor(executor);
+    }
+
+
+    public void start() { server.start(); }
+
+    /** Stops the server, running responses are aborted */
+    @Override public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public URI getUri() { return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()); }
+
+    public URI getArchiveUri(final String fileName) { return getUri().resolve(ARCHIVES_PATH + URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20")); }
+
+    /** Returns the SHA-256 checksum of the synthetic archive with the given file name */
+    public Checksum getChecksum(final String fileName) { return new Checksum(HashAlgorithm.SHA256, sha256(getArchive(fileName))); }
+
+    public boolean isRecording() { return null != upstream; }
+
+    public long getRequestCount() { return requests.get(); }
+
+    /** Number of archive requests with a range, a segmented download sends one per chunk */
+    public long getRangeRequestCount() { return rangeRequests.get(); }
+
+    /** Delay before every response */
+    public long getLatency() { return latency; }
+    public void setLatency(final long millis) { this.latency = Math.max(0, millis); }
+
+    /** Limit of every single response, 0 means unlimited */
+    public long getBandwidthLimit() { return bytesPerSecond; }
+    public void setBandwidthLimit(final long bytesPerSecond) { this.bytesPerSecond = Math.max(0, bytesPerSecond); }
+
+    /** Number of responses per archive that break off halfway before the archive is sent completely */
+    public int getFailures() { return failures; }
+    public void setFailures(final int failures) {
+        this.failures = Math.max(0, failures);
+        archiveRequests.clear();
+    }
+
+    /** Size of the payload of archives that have not been generated yet */
+    public long getArchiveSize() { return archiveSize; }
+    public void setArchiveSize(final long archiveSize) { this.archiveSize = Math.max(0, archiveSize); }
+
+    /** Returns the name of the recording of the given path and query */
+    public static String getRecordingName(final String path, final String query) {
+        final String name = path.replaceAll("^/+", "").replaceAll("[^a-zA-Z0-9._-]", "_");
+        return (null == query || query.isEmpty() ? name : name + "-" + sha256(query.getBytes(StandardCharsets.UTF_8)).substring(0, 16)) + ".json";
+    }
+
+
+    // HttpExchange is only AutoCloseable on Java 18 and later
+    private void handleApi(final HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            delay();
+            final String path      = exchange.getRequestURI().getRawPath();
+            final String query     = exchange.getRequestURI().getRawQuery();
+            final Path   recording = recordings.resolve(getRecordingName(path, query));
+            String text = Files.isRegularFile(recording) ? Files.readString(recording, StandardCharsets.UTF_8) : null;
+            if (null == text && isRecording()) {
+                text = transport.getText(upstream.resolve(path + (null == query ? "" : "?" + query)));
+                if (null != text) {
+                    Files.createDirectories(recordings);
+                    Files.writeString(recording, text, StandardCharsets.UTF_8);
+                }
+            }
+            if (null == text) {
+                send(exchange, HttpURLConnection.HTTP_NOT_FOUND, "{\"result\":[],\"message\":\"No recording for " + path + "\"}");
+                return;
+            }
+            send(exchange, HttpURLConnection.HTTP_OK, path.startsWith(EPHEMERAL_IDS_PATH) ? rewritePkgInfo(text) : text);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleArchive(final HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            delay();
+            final String fileName = URLDecoder.decode(exchange.getRequestURI().getRawPath().substring(ARCHIVES_PATH.length()), StandardCharsets.UTF_8);
+            final byte[] archive  = getArchive(fileName);
+            final String etag     = "\"" + sha256(archive).substring(0, 16) + "\"";
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+
+            long         start  = 0;
+            long         end    = archive.length - 1;
+            final String range  = exchange.getRequestHeaders().getFirst("Range");
+            if (null != range && range.startsWith("bytes=")) {
+                rangeRequests.incrementAndGet();
+                final String[] bounds = range.substring(6).split("-", -1);
+                try {
+                    start = Long.parseLong(bounds[0].trim());
+                    end   = bounds[1].isBlank() ? end : Math.min(end, Long.parseLong(bounds[1].trim()));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    start = archive.length;
+                }
+                if (start > end) {
+                    exchange.getResponseHeaders().set("Content-Range", "bytes */" + archive.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + archive.length);
+            }
+            final long length = end - start + 1;
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Content-Length", Long.toString(length));
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(null == range ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_PARTIAL, length);
+
+            // the first responses of an archive break off halfway if failures are injected
+            final boolean          failing = archiveRequests.computeIfAbsent(fileName, name -> new AtomicInteger()).incrementAndGet() <= failures;
+            final long             stop    = failing ? start + length / 2 : end + 1;
+            final BandwidthLimiter limiter = new BandwidthLimiter(bytesPerSecond);
+            final OutputStream     out     = exchange.getResponseBody();
+            for (long offset = start ; offset < stop ; offset += CHUNK_SIZE) {
+                final int chunk = (int) Math.min(CHUNK_SIZE, stop - offset);
+                limiter.acquire(chunk);
+                out.write(archive, (int) offset, chunk);
+            }
+            out.flush();
+            if (failing) { throw new IOException("Injected failure of " + fileName); }
+        } catch (InterruptedIOException e) {
+            // aborted by close()
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void delay() throws InterruptedIOException {
+        if (latency <= 0) { return; }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Stand-in server stopped");
+        }
+    }
+
+    /** Points the download uris and checksums of package infos to the synthetic archives */
+    private String rewritePkgInfo(final String text) {
+        try {
+            final JsonElement json = JsonParser.parseString(text);
+            if (json.isJsonObject() && json.getAsJsonObject().has(FIELD_RESULT)) {
+                for (JsonElement element : json.getAsJsonObject().getAsJsonArray(FIELD_RESULT)) { rewritePkgInfo(element.getAsJsonObject()); }
+            } else if (json.isJsonArray()) {
+                for (JsonElement element : (JsonArray) json) { rewritePkgInfo(element.getAsJsonObject()); }
+            } else {
+                rewritePkgInfo(json.getAsJsonObject());
+            }
+            return json.toString();
+        } catch (JsonParseException | IllegalStateException e) {
+            return text;
+        }
+    }
+
+    private void rewritePkgInfo(final JsonObject pkgInfo) {
+        if (!pkgInfo.has(FIELD_FILENAME)) { return; }
+        final String fileName = pkgInfo.get(FIELD_FILENAME).getAsString();
+        pkgInfo.addProperty("direct_download_uri", getArchiveUri(fileName).toString());
+        pkgInfo.addProperty("download_site_uri", getUri().toString());
+        pkgInfo.addProperty("checksum", getChecksum(fileName).getValue());
+        pkgInfo.addProperty("checksum_type", HashAlgorithm.SHA256.getApiString());
+        pkgInfo.addProperty("checksum_uri", "");
+        pkgInfo.addProperty("signature_uri", "");
+    }
+
+    private byte[] getArchive(final String fileName) {
+        return archives.computeIfAbsent(fileName, name -> {
+            try {
+                return createArchive(name, archiveSize);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /** Creates a JDK layout with a release file, a java launcher and an incompressible payload of the given size */
+    private static byte[] createArchive(final String fileName, final long payloadSize) throws IOException {
+        final String  home    = ArchiveExtractor.getBaseName(fileName);
+        final Matcher matcher = VERSION.matcher(fileName);
+        final byte[]  release = ("JAVA_VERSION=\"" + (matcher.find() ? matcher.group() : "0.0.0") + "\"\nIMPLEMENTOR=\"DiscoEclipse stand-in\"\n").getBytes(StandardCharsets.UTF_8);
+        final byte[]  java    = "#!/bin/sh\necho \"DiscoEclipse stand-in\"\n".getBytes(StandardCharsets.UTF_8);
+        final byte[]  payload = new byte[(int) payloadSize];
+        new Random(fileName.hashCode()).nextBytes(payload);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 64 * 1024);
+        switch (ArchiveType.getFromFileName(fileName)) {
+            case ZIP:
+                try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+                    for (Object[] entry : new Object[][] { { "release", release }, { "bin/java", java }, { "lib/modules", payload } }) {
+                        zip.putNextEntry(new ZipEntry(home + "/" + entry[0]));
+                        zip.write((byte[]) entry[1]);
+                        zip.closeEntry();
+                    }
+                }
+                break;
+            case TAR_GZ:
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, CHUNK_SIZE)) { writeTar(gzip, home, release, java, payload); }
+                break;
+            case TAR:
+                writeTar(bytes, home, release, java, payload);
+                break;
+            default:
+                bytes.write(payload);
+                break;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeTar(final OutputStream out, final String home, final byte[] release, final byte[] java, final byte[] payload) throws IOException {
+        writeTarEntry(out, home + "/release", 0644, release);
+        writeTarEntry(out, home + "/bin/java", 0755, java);
+        writeTarEntry(out, home + "/lib/modules", 0644, payload);
+        out.write(new byte[2 * TAR_BLOCK_SIZE]);
+    }
+
+    /** Writes a ustar header and the content padded to whole blocks */
+    private static void writeTarEntry(final OutputStream out, final String name, final int mode, final byte[] content) throws IOException {
+        final byte[] header = new byte[TAR_BLOCK_SIZE];
+        put(header, 0, 100, name);
+        put(header, 100, 8, String.format("%07o", mode));
+        put(header, 108, 8, "0000000");
+        put(header, 116, 8, "0000000");
+        put(header, 124, 12, String.format("%011o", content.length));
+        put(header, 136, 12, String.format("%011o", 0L));
+        put(header, 148, 8, "        ");
+        header[156] = '0';
+        put(header, 257, 6, "ustar");
+        put(header, 263, 2, "00");
+        int checksum = 0;
+        for (byte b : header) { checksum += b & 0xFF; }
+        put(header, 148, 8, String.format("%06o", checksum) + "\0 ");
+        out.write(header);
+        out.write(content);
+        out.write(new byte[(TAR_BLOCK_SIZE - content.length % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE]);
+    }
+
+    private static void put(final byte[] header, final int offset, final int length, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(length, bytes.length));
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String text) throws IOException {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String sha256(final byte[] bytes) {
+        try {
+            return Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}